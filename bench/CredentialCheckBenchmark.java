@@ -0,0 +1,113 @@
+import UseCase.PasswordHasher;
+import UseCase.UserManager;
+
+import java.util.Random;
+
+/**
+ * A benchmark that compares the single-pass UserManager.pwdType and UserManager.isValidEmail with the regular
+ * expressions they replaced, which are kept here as oldPwdType and oldIsValidEmail.
+ * It first checks that the old and new checks give the same answer for every character in each position of a few
+ * passwords and emails, and for random strings, then prints how long one check takes with each of them.
+ *
+ * To run it from the root of the project:
+ *   javac -d out $(find src -name "*.java") bench/CredentialCheckBenchmark.java
+ *   java -cp out CredentialCheckBenchmark
+ *
+ * ROUNDS: number of times every check is timed
+ * CHECKS: number of checks timed in one round
+ */
+public class CredentialCheckBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int CHECKS = 1000000;
+    private static final String[] PASSWORDS = {"password", "Passw0rd!", "abc123xyz", "ABCDEF12", "12345678",
+            "Sup3r, secure? pass#2020", "pa$$w0rd", "abc"};
+    private static final String[] EMAILS = {"john.doe@mail.com", "john_doe+x@mail.com", "bad@@mail.com",
+            "someone@example.org", "x@y"};
+
+    /**
+     * Check the password type like UserManager.pwdType did before, with regular expressions.
+     * @param password the password
+     * @return "too weak", "weak" or "good"
+     */
+    static String oldPwdType(String password) {
+        if (password.matches("^(?=.*[a-zA-Z])[A-Za-z-+_!@#$%^&*., ?]+$") ||
+                password.matches("^(?=.*[0-9])[0-9-+_!@#$%^&*., ?]+$") ||
+                password.matches("^[-+_!@#$%^&*., ?]+$") || password.length() < 6) {
+            return "too weak";
+        } else if (password.matches("^(?=.*[A-Z])(?=.*[0-9])[A-Z0-9-+_!@#$%^&*., ?]+$") ||
+                password.matches("^(?=.*[a-z])(?=.*[0-9])[a-z0-9-+_!@#$%^&*., ?]+$")) {
+            return "weak";
+        } else if (password.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])[A-Za-z0-9-+_!@#$%^&*., ?]+$")) {
+            return "good";
+        }
+        return "too weak";
+    }
+
+    /**
+     * Check an email like UserManager.isValidEmail did before, with a regular expression.
+     * @param email the email
+     * @return true iff the email is valid
+     */
+    static boolean oldIsValidEmail(String email) {
+        return email.matches("^[a-zA-Z0-9_+&*-]+@[a-zA-Z0-9]+\\.[a-zA-Z0-9]+$");
+    }
+
+    public static void main(String[] args) {
+        UserManager um = new UserManager(new PasswordHasher(1, 1, 1));
+        int different = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String ch = String.valueOf((char) c);
+            for (String password : new String[]{"Abc12" + ch, ch + "abc12", "ABC12" + ch, "abcde" + ch,
+                    "12345" + ch, "aB1" + ch + "xx"}) {
+                if (!oldPwdType(password).equals(um.pwdType(password))) {
+                    different++;
+                }
+            }
+            for (String email : new String[]{"a" + ch + "b@c.d", ch + "@c.d", "ab@c" + ch + "d", "ab@c.d" + ch,
+                    "ab@" + ch + "c.d", "ab@c." + ch}) {
+                if (oldIsValidEmail(email) != um.isValidEmail(email)) {
+                    different++;
+                }
+            }
+        }
+        String alphabet = "aZ5-@.\n \u00e9_?#";
+        Random random = new Random(1);
+        for (int i = 0; i < 1000000; i++) {
+            StringBuilder s = new StringBuilder();
+            for (int k = random.nextInt(12); k > 0; k--) {
+                s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = s.toString();
+            if (!oldPwdType(text).equals(um.pwdType(text)) || oldIsValidEmail(text) != um.isValidEmail(text)) {
+                different++;
+            }
+        }
+        System.out.println("Strings the old and new checks disagree on: " + different);
+
+        int sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < CHECKS; i++) {
+                sink += oldPwdType(PASSWORDS[i % PASSWORDS.length]).length();
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < CHECKS; i++) {
+                sink += um.pwdType(PASSWORDS[i % PASSWORDS.length]).length();
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < CHECKS; i++) {
+                sink += oldIsValidEmail(EMAILS[i % EMAILS.length]) ? 1 : 0;
+            }
+            long t3 = System.nanoTime();
+            for (int i = 0; i < CHECKS; i++) {
+                sink += um.isValidEmail(EMAILS[i % EMAILS.length]) ? 1 : 0;
+            }
+            long t4 = System.nanoTime();
+            System.out.printf("round %d: pwdType old %.1f ns, new %.1f ns; isValidEmail old %.1f ns, new %.1f ns%n",
+                    round, (t1 - t0) / (double) CHECKS, (t2 - t1) / (double) CHECKS,
+                    (t3 - t2) / (double) CHECKS, (t4 - t3) / (double) CHECKS);
+        }
+        // printed so that the checks are not optimized away
+        System.out.println("(" + sink + ")");
+    }
+}
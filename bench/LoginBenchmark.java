@@ -0,0 +1,80 @@
+import UseCase.PasswordHasher;
+import UseCase.UserManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A benchmark of how many logins UserManager.checkEmailPwd handles per second when the passwords are hashed by a
+ * PasswordHasher, for a few costs and numbers of worker threads.
+ * CLIENTS threads log in at the same time, each as its own user, like users that login at once. For every cost
+ * and number of workers it prints the logins per second, the wall time of one login per worker, and the largest
+ * number of logins that waited for a worker. At the end it prints how long checking a plain text password, as
+ * saved by older versions, takes.
+ *
+ * To run it from the root of the project:
+ *   javac -d out $(find src -name "*.java") bench/LoginBenchmark.java
+ *   java -cp out LoginBenchmark
+ *
+ * CLIENTS: number of threads that log in at the same time
+ * ITERATIONS: the costs of the hashes that are measured
+ * WORKERS: the numbers of worker threads of PasswordHasher that are measured
+ * QUEUE_SIZE: the largest number of logins that wait for a worker
+ * WORK: the number of logins times the cost, which is about the same work for every cost
+ */
+public class LoginBenchmark {
+    private static final int CLIENTS = 8;
+    private static final int[] ITERATIONS = {10000, 50000, 210000, 600000};
+    private static final int[] WORKERS = {1, 2, 4};
+    private static final int QUEUE_SIZE = 64;
+    private static final long WORK = 8000000;
+
+    public static void main(String[] args) throws Exception {
+        for (int iterations : ITERATIONS) {
+            for (int workers : WORKERS) {
+                PasswordHasher hasher = new PasswordHasher(iterations, workers, QUEUE_SIZE);
+                UserManager um = new UserManager(hasher);
+                for (int i = 0; i < CLIENTS; i++) {
+                    um.createUser("user" + i + "@mail.com", "Passw0rd" + i, "regular");
+                }
+                for (int i = 0; i < 3; i++) {
+                    um.checkEmailPwd("user0@mail.com", "Passw0rd0");
+                }
+                int perClient = (int) Math.max(2, WORK / iterations / CLIENTS);
+                ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+                List<Future<?>> logins = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int c = 0; c < CLIENTS; c++) {
+                    String email = "user" + c + "@mail.com";
+                    String password = "Passw0rd" + c;
+                    logins.add(clients.submit(() -> {
+                        for (int k = 0; k < perClient; k++) {
+                            if (!um.checkEmailPwd(email, password)) {
+                                throw new IllegalStateException("The login of " + email + " failed.");
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> login : logins) {
+                    login.get();
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                clients.shutdown();
+                int total = perClient * CLIENTS;
+                System.out.printf("iterations %d, %d workers: %d logins in %.2f s = %.1f logins/s, " +
+                                "%.1f wall ms/login per worker, max queue depth %d%n", iterations, workers, total,
+                        seconds, total / seconds, seconds * 1000 / total * workers, hasher.getMaxQueueDepth());
+            }
+        }
+        PasswordHasher hasher = new PasswordHasher(1, 1, 1);
+        int checks = 100000;
+        long start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            hasher.verify("Passw0rd", "Passw0rd");
+        }
+        System.out.printf("plain text password: %.2f us per check%n", (System.nanoTime() - start) / 1e3 / checks);
+    }
+}
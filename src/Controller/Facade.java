@@ -1,15 +1,24 @@
 package Controller;
 
 import Entity.Schedule;
+import Entity.ScheduledEvent;
+import Gateway.BinaryFileListener;
+import Gateway.ChatHistoryStore;
+import Gateway.EventFileReader;
+import Gateway.FileListener;
 import Gateway.FileReadWriter;
+import Gateway.ICalendarWriter;
 import Gateway.ReadFileListener;
 import Gateway.SaveFileListener;
+import Gateway.ScheduleJournal;
 import UseCase.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -26,6 +35,22 @@ import java.util.Scanner;
  * frw: FileReadWriter
  * mm: MessageManager
  * ms: MessageSender
+ * STORAGE: the storage backend, "ser" (default) for Java-serialized .ser files or "binary" for .bin files.
+ *          It is set by the system property calendar.storage.
+ * LOAD: how the ser files are read at startup, "sequential" (default) or "parallel", which reads them at the same
+ *          time and prints how long each file took. It is set by the system property calendar.load.
+ * CHAT_CACHE_SIZE: how many users' chat histories MessageManager keeps in memory when they are not changed. It is
+ *          set by the system property calendar.chatCacheSize.
+ * JOURNAL_COMPACT_SIZE: size of the schedule journal, in bytes, at which all schedules are saved again and the journal
+ *          is emptied. It is set by the system property calendar.journal.compactSize.
+ * TEMP_PASSWORD_HOURS: how many hours a temporary password can be used after "Forgot Password". It is set by the
+ *          system property calendar.tempPasswordHours.
+ * PASSWORD_ITERATIONS: the cost of the password hashes, the number of iterations of PBKDF2. It is set by the system
+ *          property calendar.password.iterations.
+ * PASSWORD_THREADS: number of threads that hash and check passwords. It is set by the system property
+ *          calendar.password.threads.
+ * PASSWORD_QUEUE_SIZE: the largest number of logins that wait for a password thread. It is set by the system
+ *          property calendar.password.queueSize.
  *
  * @author Kexin Sha
  * @author Jessica Wang
@@ -36,6 +61,15 @@ import java.util.Scanner;
  *
  */
 public class Facade {
+    private static final String STORAGE = System.getProperty("calendar.storage", "ser");
+    private static final String LOAD = System.getProperty("calendar.load", "sequential");
+    private static final int CHAT_CACHE_SIZE = Integer.getInteger("calendar.chatCacheSize", 16);
+    private static final long JOURNAL_COMPACT_SIZE = Long.getLong("calendar.journal.compactSize",
+            ScheduleJournal.COMPACT_SIZE);
+    private static final long TEMP_PASSWORD_HOURS = Long.getLong("calendar.tempPasswordHours", 24);
+    private static final int PASSWORD_ITERATIONS = Integer.getInteger("calendar.password.iterations", 210000);
+    private static final int PASSWORD_THREADS = Integer.getInteger("calendar.password.threads", 2);
+    private static final int PASSWORD_QUEUE_SIZE = Integer.getInteger("calendar.password.queueSize", 64);
     public TemplateSystem ts;
     public TemplateManager tm;
     public ScheduleManager sm;
@@ -48,7 +82,7 @@ public class Facade {
 
     /**
      * The constructor of facade that initialize the Template, Schedule, User related entity, use case and controller.
-     * Calls setFileObservable and setMsgObservable to set up for these two Observable.
+     * Calls setFileObservable and setMsgObservable to set up for these two Observable, then startExpiry.
      * <p>
      * ts: TemplateSystem
      * tm: TemplateManager
@@ -63,21 +97,53 @@ public class Facade {
      * ms: MessageSender
      */
     public Facade() throws IOException {
-        um = new UserManager();
+        um = new UserManager(new PasswordHasher(PASSWORD_ITERATIONS, PASSWORD_THREADS, PASSWORD_QUEUE_SIZE));
         tm = new TemplateManager();
         sm = new ScheduleManager();
         mm = new MessageManager(um);
-        ts = new TemplateSystem(tm);
+        ts = new TemplateSystem(tm, sm);
         ss = new ScheduleSystem(sm, tm);
         ls = new LoginSystem(um);
         setFileObservable();
         setMsgObservable();
+        startExpiry();
+    }
+
+    /**
+     * Start the expiry thread of um, which removes suspensions and temporary passwords once they expire, and save
+     * the files that they are saved in after it removes them.
+     */
+    private void startExpiry(){
+        um.setTempPasswordTtl(TEMP_PASSWORD_HOURS * 60 * 60 * 1000);
+        um.startExpiry(new ExpiryListener() {
+            @Override
+            public void suspensionsExpired(List<String> emails) {
+                save("saveSuspend");
+            }
+
+            @Override
+            public void tempPasswordsExpired(List<String> userIds) {
+                save("saveTempInfo");
+            }
+
+            private void save(String actionType) {
+                try {
+                    frw.saveFile(actionType);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        });
     }
 
     /**
      * Do the initial setup for FileReadWriter.
      * Creates operations(fileType) for FileReadWriter and initializes it, and subscribes objects for ReadFile and SaveFile
      * in frw's events with corresponding operations.
+     * When STORAGE is "binary", a BinaryFileListener reads and saves the data files instead, and SaveFileListener
+     * only saves the welcome message. Otherwise the chat history of each user is kept apart in a ChatHistoryStore.
+     * Schedules are saved by a ScheduleJournal, which appends the changes to a journal and only lets the saver save
+     * all schedules once the journal is large enough.
      */
     private void setFileObservable(){
         ArrayList<String> operations = new ArrayList<>();
@@ -94,18 +160,39 @@ public class Facade {
         operations.add("saveCommonInbox");
         operations.add("saveChatHistory");
         frw = new FileReadWriter(operations);
-        frw.events.subscribe("readFile", new ReadFileListener(tm, sm, mm, ls));
+        if (!STORAGE.equals("binary")) {
+            mm.setMessageStore(new ChatHistoryStore("phase2/ChatHistory/", "phase2/ChatHistory.ser"),
+                    CHAT_CACHE_SIZE);
+        }
         SaveFileListener sf = new SaveFileListener(tm, sm, mm, ls);
-        frw.events.subscribe("saveScheduleData", sf);
-        frw.events.subscribe("saveTemplateData", sf);
-        frw.events.subscribe("saveUserInfo", sf);
-        frw.events.subscribe("saveSuspend", sf);
-        frw.events.subscribe("saveFreeze", sf);
-        frw.events.subscribe("saveLoginTime", sf);
-        frw.events.subscribe("saveTempInfo", sf);
         frw.events.subscribe("saveWelMsg", sf);
-        frw.events.subscribe("saveCommonInbox", sf);
-        frw.events.subscribe("saveChatHistory", sf);
+        if (STORAGE.equals("binary")) {
+            BinaryFileListener bf = new BinaryFileListener(tm, sm, mm, ls);
+            subscribeDataFiles(bf, bf);
+        } else {
+            subscribeDataFiles(new ReadFileListener(tm, sm, mm, ls, LOAD.equals("parallel")), sf);
+        }
+    }
+
+    /**
+     * Subscribes reader for readFile and saver for saving every data file in frw's events. Schedules are saved
+     * through a ScheduleJournal, which also reads the journal after reader has read all files.
+     * @param reader listener that reads all files
+     * @param saver listener that saves data files
+     */
+    private void subscribeDataFiles(FileListener reader, FileListener saver) {
+        ScheduleJournal journal = new ScheduleJournal(sm, saver, JOURNAL_COMPACT_SIZE);
+        frw.events.subscribe("readFile", reader);
+        frw.events.subscribe("readFile", journal);
+        frw.events.subscribe("saveScheduleData", journal);
+        frw.events.subscribe("saveTemplateData", saver);
+        frw.events.subscribe("saveUserInfo", saver);
+        frw.events.subscribe("saveSuspend", saver);
+        frw.events.subscribe("saveFreeze", saver);
+        frw.events.subscribe("saveLoginTime", saver);
+        frw.events.subscribe("saveTempInfo", saver);
+        frw.events.subscribe("saveCommonInbox", saver);
+        frw.events.subscribe("saveChatHistory", saver);
     }
 
     /**
@@ -175,25 +262,86 @@ public class Facade {
 
     public void saveSchedule(String id) throws IOException {
         HashMap<String, List<Schedule>> scheduleList = sm.getSchedulesList();
-        HashMap<String, String> scheduleTempMap = sm.getScheduleTempMap();
-        HashMap<String, List<Schedule>> schedulesFriend = sm.getSchedulesFriend();
         if (um.getUserType(id).equals("trial")) {
             if (scheduleList.containsKey(id)) {
-                List<Schedule> userSchedules = scheduleList.get(id);
-                scheduleList.remove(id);
-                schedulesFriend.remove(id);
-                for (Schedule s : userSchedules) {
-                    scheduleTempMap.remove(s.getScheduleID());
+                for (Schedule s : new ArrayList<>(scheduleList.get(id))) {
+                    sm.deleteSchedule(s.getScheduleID());
                 }
+                scheduleList.remove(id);
             }
-
-            sm.setSchedulesList(scheduleList);
-            sm.setSchedulesFriend(schedulesFriend);
-            sm.setScheduleTempMap(scheduleTempMap);
         }
         frw.saveFile("saveScheduleData");
     }
 
+    /**
+     * import the events in a CSV or iCalendar file to a schedule, and report how many are imported and the lines
+     * that are not.
+     * @param scheduleId the schedule id
+     * @param path path of the file
+     * @throws ScheduleNotFoundException when the schedule id is not valid.
+     * @throws TemplateNotFoundException when there is no matching template with the schedule.
+     * @throws IOException when the file can not be read.
+     */
+    public void importEvents(String scheduleId, String path) throws ScheduleNotFoundException,
+            TemplateNotFoundException, IOException {
+        EventImport events = new EventImport();
+        new EventFileReader(path).read(sm.getScheduleByID(scheduleId), events);
+        sm.importEvents(scheduleId, events, tm);
+        for (Map.Entry<Integer, String> error : events.getErrors().entrySet()) {
+            System.out.println("Line " + error.getKey() + ": " + error.getValue());
+        }
+        System.out.println(events.getAdded() + " events are imported, " + events.getErrors().size() +
+                " lines are not imported.");
+    }
+
+    /**
+     * check the schedules made from a template against its limits again, and report the events that break them.
+     * @param templateId the template id
+     * @throws TemplateNotFoundException when the template id is not valid.
+     */
+    public void revalidateTemplate(String templateId) throws TemplateNotFoundException {
+        RevalidationReport report = sm.revalidateTemplate(templateId, tm);
+        for (int i = 0; i < report.size(); i++) {
+            ScheduledEvent event = report.getEvent(i);
+            System.out.println("Schedule " + event.getScheduleID() + ", event " + event + ": " + report.getReason(i));
+        }
+        System.out.println(report.getScheduleCount() + " schedules and " + report.getEventCount() +
+                " event times are checked, " + report.size() + " of them break the limits of this template.");
+    }
+
+    /**
+     * export a schedule to an iCalendar file.
+     * @param scheduleId the schedule id
+     * @param path path of the file
+     * @return number of events exported
+     * @throws ScheduleNotFoundException when the schedule id is not valid.
+     * @throws IOException when the file can not be written.
+     */
+    public int exportSchedule(String scheduleId, String path) throws ScheduleNotFoundException, IOException {
+        return new ICalendarWriter(path).write(Collections.singletonList(sm.getScheduleByID(scheduleId)));
+    }
+
+    /**
+     * export all schedules a user created to an iCalendar file.
+     * @param userId the user id
+     * @param path path of the file
+     * @return number of events exported
+     * @throws IOException when the file can not be written.
+     */
+    public int exportUserSchedules(String userId, String path) throws IOException {
+        return new ICalendarWriter(path).write(sm.getSchedulesList().getOrDefault(userId, Collections.emptyList()));
+    }
+
+    /**
+     * export all public schedules to an iCalendar file.
+     * @param path path of the file
+     * @return number of events exported
+     * @throws IOException when the file can not be written.
+     */
+    public int exportPublicSchedules(String path) throws IOException {
+        return new ICalendarWriter(path).write(sm.getSchedulesByStatus("public"));
+    }
+
     /**
      * a method to create a template (MonthlyTemplate, DailyTemplate or WeeklyTemplate) for admin users.
      * @param sc a scanner
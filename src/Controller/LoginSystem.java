@@ -5,7 +5,7 @@ import UseCase.UserManager;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.UUID;
 
 /**
@@ -93,6 +93,37 @@ public class LoginSystem {
         return um.getFriends(getId(email));
     }
 
+    /**
+     * Return true iff the two users are friends
+     * @param email this user's email
+     * @param friendEmail the other user's email
+     * @return true iff the user with friendEmail is this user's friend
+     */
+    public boolean isFriend(String email, String friendEmail){
+        return um.isFriend(getId(email), getId(friendEmail));
+    }
+
+    /**
+     * Return an arraylist of email's of the users that are friends of both users
+     * @param email this user's email
+     * @param otherEmail the other user's email
+     * @return an arraylist of mutual friends' email
+     */
+    public ArrayList<String> mutualFriendList(String email, String otherEmail){
+        return um.toEmails(um.getMutualFriendsId(getId(email), getId(otherEmail)));
+    }
+
+    /**
+     * Return an arraylist of email's of the friends of this user's friends that are not yet this user's friends,
+     * with the users that have the most mutual friends with this user first
+     * @param email this user's email
+     * @param limit the largest number of emails returned
+     * @return an arraylist of suggested friends' email
+     */
+    public ArrayList<String> suggestedFriendList(String email, int limit){
+        return um.toEmails(um.getFriendsOfFriendsId(getId(email), limit));
+    }
+
     /**
      * Print out the ArrayList of this user's friends
      * @param email user's email
@@ -139,9 +170,10 @@ public class LoginSystem {
     /**
      * Freeze users by enter in freeze days
      * @param period number of days that user got frozen
+     * @return the number of users who got frozen
      */
-    public void userFreeze(int period){
-        um.freezeUser(period);
+    public int userFreeze(int period){
+        return um.freezeUser(period);
     }
 
     /**
@@ -173,6 +205,16 @@ public class LoginSystem {
         return um.checkEmailPwd(email, password);
     }
 
+    /**
+     * Return true iff a password was hashed again when a user logged in since this method was last called, so that
+     * the users should be saved
+     *
+     * @return true iff the user info should be saved
+     */
+    public boolean passwordsRehashed(){
+        return um.passwordsRehashed();
+    }
+
     /**
      * Return true if and only if the user is not got suspend he/she logins
      * Otherwise return false
@@ -205,6 +247,15 @@ public class LoginSystem {
         return um.displayLeftTime(email);
     }
 
+    /**
+     * Return the users who are suspended now, the users whose suspension ends first first
+     *
+     * @return a LinkedHashMap which key is user's email, value is the time the user could log in again
+     */
+    public LinkedHashMap<String, Date> suspendedUsers(){
+        return um.getSuspendedUsers(System.currentTimeMillis());
+    }
+
     /**
      * Returns true iff email this user entered has not been signed up.
      * Otherwise, returns false.
@@ -279,7 +330,7 @@ public class LoginSystem {
     }
 
     /**
-     * Return an arraylist that contains user's id, email and temporary password
+     * Return an arraylist that contains user's id, email, temporary password and the time it expires
      *
      * @param email user's email
      * @return arraylist that contains user's info
@@ -288,38 +339,24 @@ public class LoginSystem {
         ArrayList<String> info = new ArrayList<>();
         String userId = getId(email);
         String pwd = UUID.randomUUID().toString();//weak
-        setTempPwd(userId, pwd);
+        Date expiry = um.setTempPassword(userId, pwd);
         info.add(userId);
         info.add(email);
         info.add(pwd);
+        info.add(expiry.toString());
         return info;
     }
 
-    /**
-     * Add the element where key is this user's email and value is temporary password to the HashMap in um.
-     * This method is called when this user chooses "Forgot Password"
-     *
-     * @param userId user's id
-     * @param pwd temporary password
-     */
-    private void setTempPwd(String userId, String pwd){
-        HashMap<String, String> tempInfo = um.getTempInfo();
-        tempInfo.put(userId, pwd);
-    }
-
     /**
      * Return true if and only if user request forgot password and
-     * use temporary password to login
+     * use temporary password to login before it expires
      *
      * @param email user's email
      * @param password user's password
      * @return true if user use temporary password to login when request forgor password
      */
     public boolean checkTemp(String email, String password){
-        if (um.getTempInfo().containsKey(getId(email))){
-            return um.getTempInfo().get(getId(email)).equals(password);
-        }
-        return false;
+        return um.checkTempPassword(getId(email), password);
     }
 
     /**
@@ -329,7 +366,7 @@ public class LoginSystem {
      * @param email user's email
      */
     public void deleteTemp(String email){
-        um.getTempInfo().remove(getId(email));
+        um.deleteTempPassword(getId(email));
     }
 
     /**
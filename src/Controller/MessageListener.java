@@ -3,6 +3,8 @@ package Controller;
 import Entity.Message;
 import UseCase.UserNotFoundException;
 
+import java.io.IOException;
+
 
 /**
  * An interface that contains one method update, which is implemented by SendMsgListener.
@@ -16,6 +18,7 @@ public interface MessageListener {
 	 * @param actionType is the way of sending message when this method is called
 	 * @param message is the Message object
 	 * @throws UserNotFoundException when the implemented methods throws exception
+	 * @throws IOException when the chat history of a user can not be read
 	 */
-	void update(String actionType, Message message) throws UserNotFoundException;
+	void update(String actionType, Message message) throws UserNotFoundException, IOException;
 }
@@ -3,6 +3,7 @@ package Controller;
 import Entity.Message;
 import UseCase.UserNotFoundException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -47,8 +48,9 @@ public class MessagePublisher {
 	 * @param actionType the key in listeners, and the way of sending message we want when calling
 	 * @param message the message to be updated
 	 * @throws UserNotFoundException when calling update
+	 * @throws IOException when calling update
 	 */
-	public void notify(String actionType, Message message) throws UserNotFoundException {
+	public void notify(String actionType, Message message) throws UserNotFoundException, IOException {
 		ArrayList<MessageListener> users = listeners.get(actionType);
 		for (MessageListener listener : users) {
 			listener.update(actionType, message);
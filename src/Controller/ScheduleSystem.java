@@ -1,6 +1,9 @@
 package Controller;
 
+import Entity.EventTime;
+import Entity.RecurrenceRule;
 import Entity.Schedule;
+import Entity.ScheduledEvent;
 import UseCase.*;
 
 import java.text.ParseException;
@@ -15,11 +18,13 @@ import java.util.*;
  * deletedSchedule: store all deleted schedule in a list, last element is most recently deleted schedule.
  * deletedTempID: store all deleted template id in a list.
  * deletedEventName: map a schedule id to a list of event name that has been deleted from this schedule before.
+ * PUBLIC_PAGE_SIZE: how many public schedules are displayed on one page.
  * @author Kexin Sha
  * @author Jessica Wang
  * @author Hilda Wang
  */
 public class ScheduleSystem {
+    private static final int PUBLIC_PAGE_SIZE = 10;
     private ScheduleManager sm;
     private TemplateManager tm;
     private HashMap<String, List<String>> deletedEventName = new HashMap<>();
@@ -91,8 +96,7 @@ public class ScheduleSystem {
         else {
             Schedule recoveredS = deletedSchedule.get(deletedSchedule.size() - 1);
             String newTempID = deletedTempID.get(deletedTempID.size() - 1);
-            sm.getSchedulesList().get(recoveredS.getAuthor()).add(recoveredS);
-            sm.getScheduleTempMap().put(recoveredS.getScheduleID(), newTempID);
+            sm.recoverSchedule(recoveredS, newTempID);
             System.out.println(recoveredS);
             System.out.println("This is the recovered schedule.");
             deletedSchedule.remove(deletedSchedule.size() -1);
@@ -120,10 +124,9 @@ public class ScheduleSystem {
     /**
      * Restore schedule's most recently deleted status.
      * @param scheduleId schedule id
-     * @param um UserManager
      * @throws SameStatusException when the most recent deleted status is same as current status, which is not possible.
      */
-    public void restoreStatus(String scheduleId, UserManager um) throws SameStatusException {
+    public void restoreStatus(String scheduleId) throws SameStatusException {
         if(previousStatus.isEmpty()){
             System.out.println("There is no previous status of this schedule.");
         }
@@ -131,13 +134,6 @@ public class ScheduleSystem {
             sm.changeStatus(scheduleId, previousStatus.get(previousStatus.size() - 1));
             System.out.println("This schedule's status is changed to: " +
                     previousStatus.get(previousStatus.size() - 1));
-            if (previousStatus.get(previousStatus.size() -1).equals("friend-only")){
-                try {
-                    sm.shareScheduleToFriends(scheduleId, um);
-                } catch (ScheduleNotFoundException e) {
-                    System.out.println(e.getMessage());
-                }
-            }
             previousStatus.remove(previousStatus.size() - 1);
         }
     }
@@ -177,11 +173,8 @@ public class ScheduleSystem {
         else {
             List<String> deletedEvents = deletedEventName.get(scheduleId);
             String recoverEvent = deletedEvents.get(deletedEvents.size() - 1);
-            HashMap<String, List<Date>> deletedList = sm.getDeletedEvents(scheduleId);
-            List<Date> dates = deletedList.get(recoverEvent);
-            sm.addValidEvent(dates, sm.getScheduleByID(scheduleId), recoverEvent);
-            sm.removeDeletedEvents(scheduleId, recoverEvent);
-            deletedEventName.get(scheduleId).remove(recoverEvent);
+            EventTime dates = sm.recoverDeletedEvent(scheduleId, recoverEvent);
+            deletedEvents.remove(deletedEvents.size() - 1);
             System.out.println("This is the recovered event:");
             System.out.println("Event name:" + recoverEvent);
             System.out.println("Event time:" + dates);
@@ -189,14 +182,27 @@ public class ScheduleSystem {
     }
 
     /**
-     * Display public schedule list.
+     * Display public schedule list, PUBLIC_PAGE_SIZE schedules a page. After each page but the last, the user can
+     * enter 'n' to see the next page.
+     * @param sc scanner
      */
-    public void displayPublicSchedule(){
-        if (sm.getAllPublicSchedule().isEmpty()) {
+    public void displayPublicSchedule(Scanner sc){
+        int total = sm.getPublicScheduleCount();
+        if (total == 0) {
             System.out.println("There is no public schedule.");
         }
-        for (Schedule s : sm.getAllPublicSchedule()) {
-            System.out.println(s);
+        int shown = 0;
+        Iterator<Schedule> schedules = sm.getSchedulesByStatus("public").iterator();
+        while (schedules.hasNext()) {
+            System.out.println(schedules.next());
+            shown++;
+            if (shown % PUBLIC_PAGE_SIZE == 0 && schedules.hasNext()) {
+                System.out.println("Showing " + shown + " of " + total + " public schedules. " +
+                        "Enter 'n' to see the next page, or anything else to stop.");
+                if (!sc.nextLine().equals("n")) {
+                    break;
+                }
+            }
         }
     }
 
@@ -213,29 +219,51 @@ public class ScheduleSystem {
         }
     }
 
+    /**
+     * Display the events of the schedules the particular user created that are taking place now.
+     * @param userID user id
+     */
+    public void displayUserEventsNow(String userID) {
+        List<ScheduledEvent> events = sm.getUserEventsAt(userID, System.currentTimeMillis());
+        if (!events.isEmpty()) {
+            System.out.println("Happening now:");
+            for (ScheduledEvent event : events) {
+                System.out.println(event);
+            }
+        }
+    }
+
     /**
      * Display all friends' friend-only schedules.
      * @param userID user id.
+     * @param um UserManager
      */
-    public void displayFriendsSchedule(String userID){
+    public void displayFriendsSchedule(String userID, UserManager um){
         int i = 1;
-        for (Schedule s : sm.getAllFriendsSchedule(userID)) {
+        for (Schedule s : sm.getAllFriendsSchedule(userID, um)) {
             System.out.println(i + ") " + s);
             i++;
         }
     }
 
     /**
-     * Display all events of a schedule.
+     * Display all events of a schedule, and how the events that repeat repeat.
      * @param scheduleID schedule's id
      * @throws ScheduleNotFoundException id is not valid.
      * @throws UserNotFoundException id is not valid.
      */
     public void displayScheduleEvents(String scheduleID) throws ScheduleNotFoundException{
-        if (sm.getScheduleEvents(scheduleID).isEmpty()) {
+        HashMap<String, List<List<Date>>> events = sm.getScheduleEvents(scheduleID);
+        Map<String, RecurrenceRule> rules = sm.getScheduleByID(scheduleID).getRecurrences();
+        if (events.isEmpty() && rules.isEmpty()) {
             System.out.println("There is no event in this schedule.");
-        } else {
-            System.out.println(sm.getScheduleEvents(scheduleID));
+            return;
+        }
+        if (!events.isEmpty()) {
+            System.out.println(events);
+        }
+        for (Map.Entry<String, RecurrenceRule> rule : rules.entrySet()) {
+            System.out.println(rule.getKey() + " repeats: " + rule.getValue());
         }
     }
 
@@ -277,39 +305,6 @@ public class ScheduleSystem {
         return indexToId;
     }
 
-    /**
-     * When a new friend is added, update friend-only schedules list.
-     * @param userID owner's user id
-     * @param friID friend's user id.
-     */
-    public void updateFriends(String userID, String friID){
-        updateOneFriend(userID, friID);
-        updateOneFriend(friID, userID);
-    }
-
-    /**
-     * Share user's friend-only schedules to friend
-     * @param userID user's id
-     * @param friID friend's id
-     */
-    private void updateOneFriend(String userID, String friID) {
-        if (!(sm.getSchedulesList().containsKey(userID))){
-            return;
-        }
-        for (Schedule s: sm.getSchedulesList().get(userID)){
-            if(s.getStatus().equals("friend-only")){
-                if(sm.getSchedulesFriend().containsKey(friID)){
-                    sm.getSchedulesFriend().get(friID).add(s);
-                }
-                else{
-                    ArrayList<Schedule> sList = new ArrayList<>();
-                    sList.add(s);
-                    sm.getSchedulesFriend().put(friID, sList);
-                }
-            }
-        }
-    }
-
     /**
      * Check if user's input for status is valid, if not valid, continue prompting.
      * @param userType user type
@@ -417,13 +412,67 @@ public class ScheduleSystem {
             }
             try {
                 ArrayList<String> startEnd = getStartEndbyType(scheduleId, sc);
-                sm.addEvent(scheduleId, edit_input, startEnd.get(0), startEnd.get(1), tm);
-                System.out.println("You have added new time to this event successfully.");
-                break;
+                System.out.println("Please enter 'daily', 'weekly' or 'monthly' to repeat this event, " +
+                        "or anything else to add it once: ");
+                String frequency = sc.nextLine();
+                if (!(frequency.equals("daily") || frequency.equals("weekly") || frequency.equals("monthly"))) {
+                    if (sm.addEvent(scheduleId, edit_input, startEnd.get(0), startEnd.get(1), tm)) {
+                        System.out.println("You have added new time to this event successfully.");
+                    } else {
+                        System.out.println("This event already has this time.");
+                    }
+                    break;
+                }
+                if (generateRecurringEvent(scheduleId, edit_input, startEnd, frequency, sc)) {
+                    break;
+                }
             } catch (ParseException | TemplateNotFoundException | BetweenException | DurationException |
                     StartEndException | ScheduleNotFoundException e) {
                 System.out.println(e.getMessage());
             }
         }
     }
+
+    /**
+     * Let user choose how many times a new event repeats, or until when, and make it repeat.
+     * @param scheduleId schedule id
+     * @param eventName event name
+     * @param startEnd start time and end time of the first time of the event
+     * @param frequency either daily, weekly or monthly
+     * @param sc scanner
+     * @return true if the event repeats now, false if the input is not valid.
+     * @throws ParseException when the times are in incorrect format.
+     * @throws TemplateNotFoundException when there is no matching template with the schedule.
+     * @throws BetweenException when Between time is too short.
+     * @throws DurationException when duration is too short or too long.
+     * @throws StartEndException when a time of the event is not valid.
+     * @throws ScheduleNotFoundException id invalid.
+     */
+    private boolean generateRecurringEvent(String scheduleId, String eventName, ArrayList<String> startEnd,
+                                           String frequency, Scanner sc) throws ParseException,
+            TemplateNotFoundException, BetweenException, DurationException, StartEndException,
+            ScheduleNotFoundException {
+        System.out.println("Please input the number of times this event happens, " +
+                "or 0 to repeat it until a given time: ");
+        int count;
+        try {
+            count = Integer.parseInt(sc.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Please input a number.");
+            return false;
+        }
+        String until = null;
+        if (count == 0) {
+            System.out.println("Please input the latest start time of this event, in the same format as its " +
+                    "start time: ");
+            until = sc.nextLine();
+        }
+        if (!sm.addRecurringEvent(scheduleId, eventName, startEnd.get(0), startEnd.get(1), frequency, count,
+                until, tm)) {
+            System.out.println("This event already repeats in this schedule.");
+            return false;
+        }
+        System.out.println("You have made this event repeat successfully.");
+        return true;
+    }
 }
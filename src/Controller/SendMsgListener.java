@@ -4,6 +4,8 @@ import Entity.Message;
 import UseCase.MessageManager;
 import UseCase.UserNotFoundException;
 
+import java.io.IOException;
+
 /**
  * A observer class. It implements MessageListener interface.
  *
@@ -29,9 +31,10 @@ public class SendMsgListener implements MessageListener{
 	 * @param actionType is the way of sending message when this method is called
 	 * @param message is the Message object
 	 * @throws UserNotFoundException when methods from mm throws when calling
+	 * @throws IOException when the chat history of a user can not be read
 	 */
 	@Override
-	public void update(String actionType, Message message) throws UserNotFoundException {
+	public void update(String actionType, Message message) throws UserNotFoundException, IOException {
 		if (actionType.equals("regularToAdmin")){
 			mm.sendToAdmin(message);
 		}else if (actionType.equals("regularToOther")){
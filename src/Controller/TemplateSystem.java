@@ -1,6 +1,7 @@
 package Controller;
 
 import Entity.Template;
+import UseCase.ScheduleManager;
 import UseCase.TemplateManager;
 import UseCase.TemplateNotFoundException;
 
@@ -9,11 +10,13 @@ import java.util.Map;
 
 /**
  * A class called TemplateSystem which is a controller of TemplateManager.
- * It has one attribute called tm, which is a TemplateManager.
+ * It has two attributes called tm, which is a TemplateManager, and sm, which is a ScheduleManager.
  *
- * TemplateSystem can be created by the constructor immediately with the given TemplateManager tm.
+ * TemplateSystem can be created by the constructor immediately with the given TemplateManager tm and
+ * ScheduleManager sm.
  *
  * tm: a TemplateManager
+ * sm: a ScheduleManager, which knows the schedules made from each template
  *
  * @author Christine
  * @author Chuanrun Zhang
@@ -21,14 +24,17 @@ import java.util.Map;
  */
 public class TemplateSystem {
     private TemplateManager tm;
+    private ScheduleManager sm;
 
     /**
-     * A constructor that create a TemplateSystem with the parameter tm.
+     * A constructor that create a TemplateSystem with the parameters tm and sm.
      *
      * @param tm a TemplateManager
+     * @param sm a ScheduleManager
      */
-    public TemplateSystem(TemplateManager tm) {
+    public TemplateSystem(TemplateManager tm, ScheduleManager sm) {
         this.tm = tm;
+        this.sm = sm;
     }
 
     /**
@@ -41,8 +47,8 @@ public class TemplateSystem {
     }
 
     /**
-     * Get all templates with their information including their attributes stored in tm and
-     * return a HashMap with key is the index in front of each element of IdToTemplate, value is the corresponding
+     * Get all templates with their information including their attributes stored in tm and the number of schedules
+     * made from each of them, and return a HashMap with key is the index in front of each element of IdToTemplate, value is the corresponding
      * template id.
      *
      */
@@ -54,7 +60,8 @@ public class TemplateSystem {
             System.out.println(i + ") The template ID is: "  + entry.getKey() + ", and the type is: "
                     + entry.getValue().getTemplateType() + ", Max time of event: "+ entry.getValue().getMaxTimeOfEvent() +
                     ", Min time of event: " + entry.getValue().getMinTimeOfEvent() + ", Min time between event:" +
-                    entry.getValue().getMinTimeBtwEvents() + ".");
+                    entry.getValue().getMinTimeBtwEvents() + ", Used by " + sm.getTemplateUsage(entry.getKey()) +
+                    " schedules.");
             indexToId.put(i, entry.getKey());
             i++;
         }
@@ -62,13 +69,19 @@ public class TemplateSystem {
     }
 
     /**
-     * Delete a template created by the template id.
+     * Delete a template created by the template id, unless a schedule is made from it.
      * Return true if the template id deleted successfully. Return false otherwise.
      *
      * @param templateId the id of the template
+     * @return true if the template is deleted, false if it is used by a schedule.
+     * @throws TemplateNotFoundException when the template id does not exist.
      */
-    public void delete(String templateId) throws TemplateNotFoundException {
+    public boolean delete(String templateId) throws TemplateNotFoundException {
+        if (sm.getTemplateUsage(templateId) > 0) {
+            return false;
+        }
         tm.removeTemplate(templateId);
+        return true;
     }
 }
 
@@ -2,7 +2,7 @@ package Entity;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 
 /**
  * An subclass of the parent class Schedule.
@@ -15,12 +15,14 @@ import java.text.SimpleDateFormat;
  * scheduleID: unique id.
  * type: type of schedule, either "Monthly", "Daily" or "Weekly"
  * deletedEvents: a hashmap that store all deleted events, key is schedule id, values are events.
+ * serialVersionUID: fixed to the value of the class before this version, as in Schedule.
  * @author Kexin Sha
  * @author Jessica Wang
  * @author Hilda Wang
  * @version 1.8.0
  */
 public class DailySchedule extends Schedule implements Serializable {
+    private static final long serialVersionUID = -4517770030182195349L;
     private final String type = "Daily";
 
     /**
@@ -43,16 +45,46 @@ public class DailySchedule extends Schedule implements Serializable {
     }
 
     /**
-     * check if a event's start time and end time format is correct(in HH:mm).
+     * Parse a event's start time and end time, which are in HH:mm, on the date of this schedule.
      * @param startTimeString start time of event
      * @param endTimeString end time of event
-     * @return true if date format is correct, false is never returned.
+     * @return start and end time of the event
      * @throws ParseException exception occur when date format is incorrect
      */
-    public boolean checkDateFormat(String startTimeString, String endTimeString) throws ParseException {
-        new SimpleDateFormat("HH:mm").parse(startTimeString);
-        new SimpleDateFormat("HH:mm").parse(endTimeString);
-        return true;
+    public EventTime parseEventTime(String startTimeString, String endTimeString) throws ParseException {
+        return new EventTime(parseTime(startTimeString), parseTime(endTimeString));
+    }
+
+    /**
+     * Return true iff the event starts and ends on the date of this schedule. It may end at midnight at the end of
+     * the day.
+     * @param time start and end time of an event
+     * @return true iff the event time is within the date of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    public boolean isWithinSchedule(EventTime time) throws ParseException {
+        long start = DateParser.toMillis(getBaseDate().atStartOfDay());
+        long end = DateParser.toMillis(getBaseDate().plusDays(1).atStartOfDay());
+        return time.getStart() >= start && time.getEnd() <= end;
+    }
+
+    /**
+     * Parse a time in HH:mm on the date of this schedule.
+     * @param timeString time in HH:mm
+     * @return time in milliseconds
+     * @throws ParseException exception occur when date format is incorrect
+     */
+    private long parseTime(String timeString) throws ParseException {
+        return DateParser.toMillis(getBaseDate().atTime(DateParser.parseTime(timeString)));
+    }
+
+    /**
+     * Parse scheduleDate in yyyy MM dd.
+     * @return the date of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    protected LocalDate parseScheduleDate() throws ParseException {
+        return DateParser.parseDate(scheduleDate);
     }
 
     /**
@@ -0,0 +1,167 @@
+package Entity;
+
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * A class that parses schedule dates and event times typed in by users.
+ * All formatters are immutable and thread-safe, so they are created once and shared by every schedule.
+ * Month, day, hour and minute can be given with one or two digits, as before.
+ * Parsing is strict: e.g. "2021 02 30" or "25:00" is not accepted.
+ *
+ * DATE: yyyy MM dd, date of a DailySchedule or the first day of a WeeklySchedule.
+ * MONTH: yyyy MM, month of a MonthlySchedule.
+ * TIME: HH:mm, start or end time of an event in a DailySchedule.
+ * DAY_TIME: dd HH:mm, start or end time of an event in a MonthlySchedule.
+ * MONTH_DAY_TIME: MM dd HH:mm, start or end time of an event in a WeeklySchedule.
+ *
+ * @author Kexin Sha
+ * @author Jessica Wang
+ * @author Hilda Wang
+ */
+public final class DateParser {
+    public static final DateTimeFormatter DATE = formatter(ChronoField.YEAR, ChronoField.MONTH_OF_YEAR,
+            ChronoField.DAY_OF_MONTH);
+    public static final DateTimeFormatter MONTH = formatter(ChronoField.YEAR, ChronoField.MONTH_OF_YEAR);
+    public static final DateTimeFormatter TIME = formatter(ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR);
+    public static final DateTimeFormatter DAY_TIME = formatter(ChronoField.DAY_OF_MONTH, ChronoField.HOUR_OF_DAY,
+            ChronoField.MINUTE_OF_HOUR);
+    public static final DateTimeFormatter MONTH_DAY_TIME = formatter(ChronoField.MONTH_OF_YEAR,
+            ChronoField.DAY_OF_MONTH, ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR);
+    private static final ChronoField[] CHECKED_FIELDS = {ChronoField.MONTH_OF_YEAR, ChronoField.DAY_OF_MONTH,
+            ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR};
+
+    private DateParser() {
+    }
+
+    /**
+     * Build a strict formatter for the given fields. Fields are separated by a space, except that minute follows
+     * hour after a ':'.
+     * @param fields fields in the order they are typed
+     * @return the formatter
+     */
+    private static DateTimeFormatter formatter(ChronoField... fields) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                builder.appendLiteral(fields[i] == ChronoField.MINUTE_OF_HOUR ? ':' : ' ');
+            }
+            if (fields[i] == ChronoField.YEAR) {
+                builder.appendValue(fields[i], 4);
+            } else {
+                builder.appendValue(fields[i], 1, 2, SignStyle.NOT_NEGATIVE);
+            }
+        }
+        return builder.toFormatter().withResolverStyle(ResolverStyle.STRICT);
+    }
+
+    /**
+     * Parse text with the formatter, without resolving it into a date. Every parsed field is checked to be in its
+     * range, e.g. a day of month is in 1 - 31.
+     * @param text user input
+     * @param formatter one of the formatters of this class
+     * @return parsed fields
+     * @throws ParseException when text is not in the format of formatter
+     */
+    public static TemporalAccessor parse(String text, DateTimeFormatter formatter) throws ParseException {
+        try {
+            TemporalAccessor fields = formatter.parse(text);
+            for (ChronoField field : CHECKED_FIELDS) {
+                if (fields.isSupported(field)) {
+                    field.checkValidValue(fields.getLong(field));
+                }
+            }
+            return fields;
+        } catch (DateTimeException e) {
+            throw new ParseException("Unparseable date: \"" + text + "\"", 0);
+        }
+    }
+
+    /**
+     * Parse a date in the format yyyy MM dd.
+     * @param text user input
+     * @return the date
+     * @throws ParseException when text is not a valid date in the format
+     */
+    public static LocalDate parseDate(String text) throws ParseException {
+        return toDate(parse(text, DATE), text);
+    }
+
+    /**
+     * Parse a month in the format yyyy MM.
+     * @param text user input
+     * @return the first day of the month
+     * @throws ParseException when text is not a valid month in the format
+     */
+    public static LocalDate parseMonth(String text) throws ParseException {
+        TemporalAccessor fields = parse(text, MONTH);
+        return date(fields.get(ChronoField.YEAR), fields.get(ChronoField.MONTH_OF_YEAR), 1, text);
+    }
+
+    /**
+     * Parse a time in the format HH:mm.
+     * @param text user input
+     * @return the time
+     * @throws ParseException when text is not a valid time in the format
+     */
+    public static LocalTime parseTime(String text) throws ParseException {
+        return LocalTime.from(parse(text, TIME));
+    }
+
+    /**
+     * Return the date with the given year, month and day.
+     * @param year year
+     * @param month month of year
+     * @param day day of month
+     * @param text user input that the date comes from, used in the error message
+     * @return the date
+     * @throws ParseException when there is no such date
+     */
+    public static LocalDate date(int year, int month, int day, String text) throws ParseException {
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            throw new ParseException("Unparseable date: \"" + text + "\"", 0);
+        }
+    }
+
+    /**
+     * Return the time of day in parsed fields.
+     * @param fields fields that contain hour and minute
+     * @return the time
+     */
+    public static LocalTime time(TemporalAccessor fields) {
+        return LocalTime.of(fields.get(ChronoField.HOUR_OF_DAY), fields.get(ChronoField.MINUTE_OF_HOUR));
+    }
+
+    /**
+     * Return the date time in milliseconds since epoch, in the default time zone like Date does.
+     * @param dateTime a date time
+     * @return milliseconds since epoch
+     */
+    public static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Resolve parsed year, month and day into a date.
+     * @param fields parsed fields
+     * @param text user input, used in the error message
+     * @return the date
+     * @throws ParseException when there is no such date
+     */
+    private static LocalDate toDate(TemporalAccessor fields, String text) throws ParseException {
+        return date(fields.get(ChronoField.YEAR), fields.get(ChronoField.MONTH_OF_YEAR),
+                fields.get(ChronoField.DAY_OF_MONTH), text);
+    }
+}
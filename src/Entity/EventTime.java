@@ -0,0 +1,105 @@
+package Entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class that stores the start time and end time of one event in milliseconds.
+ * It can not be modified once created, so the same object can be shared by events, deletedEvents and indexes
+ * of a schedule.
+ *
+ * start: start time of the event, in milliseconds since epoch.
+ * end: end time of the event, in milliseconds since epoch.
+ * serialVersionUID: fixed, so that saved schedules can still be read after the class is changed compatibly.
+ *
+ * @author Kexin Sha
+ * @author Jessica Wang
+ * @author Hilda Wang
+ */
+public final class EventTime implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final long start;
+    private final long end;
+
+    /**
+     * Creates an EventTime with the given start time and end time.
+     * @param start start time in milliseconds
+     * @param end end time in milliseconds
+     */
+    public EventTime(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates an EventTime with the given start time and end time.
+     * @param start start time
+     * @param end end time
+     */
+    public EventTime(Date start, Date end) {
+        this(start.getTime(), end.getTime());
+    }
+
+    /**
+     * Getter of start.
+     * @return start time in milliseconds
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Getter of end.
+     * @return end time in milliseconds
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Return the length of the event.
+     * @return end minus start, in milliseconds
+     */
+    public long getLength() {
+        return end - start;
+    }
+
+    /**
+     * Return start and end time as a list of two Dates, which is how an event time was stored before.
+     * @return a new list whose first element is start time and second element is end time.
+     */
+    public List<Date> toDateList() {
+        List<Date> dates = new ArrayList<>(2);
+        dates.add(new Date(start));
+        dates.add(new Date(end));
+        return dates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EventTime)) {
+            return false;
+        }
+        EventTime other = (EventTime) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    /**
+     * Return start and end time in the same format as a list of two Dates.
+     * @return event time in a string
+     */
+    @Override
+    public String toString() {
+        return toDateList().toString();
+    }
+}
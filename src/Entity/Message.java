@@ -16,12 +16,15 @@ import java.util.ArrayList;
  * Content: a string that represents the content of this message
  * Time: time when this message is created, generated in the constructor
  * Creation: a schedule attached in this message, the default value is null
+ * serialVersionUID: fixed to the value of the class before setTime was added, so that saved messages can still
+ * be read
  *
  * @author Christine
  * @author Chuanrun Zhang
  * @author Siqing Xu
  */
 public class Message implements Serializable {
+    private static final long serialVersionUID = 6600095143925015684L;
     private String SenderID;
     private String ReceiverID;
     private String Content;
@@ -98,6 +101,16 @@ public class Message implements Serializable {
         return Time;
     }
 
+    /**
+     * Assign the time this message created called Time. Only used when a stored message is loaded back.
+     * It is a setter of Time of a Message.
+     *
+     * @param time the time this message created
+     */
+    public void setTime(String time) {
+        Time = time;
+    }
+
     /**
      * Assign the schedule attached to this message called Creation.
      * It is a setter of Creation of a Message.
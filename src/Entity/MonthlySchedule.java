@@ -2,7 +2,9 @@ package Entity;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 
 /**
  * An subclass of the parent class Schedule.
@@ -15,12 +17,14 @@ import java.text.SimpleDateFormat;
  * scheduleID: unique id.
  * type: type of schedule, either "Monthly", "Daily" or "Weekly"
  * deletedEvents: a hashmap that store all deleted events, key is schedule id, values are events.
+ * serialVersionUID: fixed to the value of the class before this version, as in Schedule.
  * @author Kexin Sha
  * @author Jessica Wang
  * @author Hilda Wang
  * @version 1.8.0
  */
 public class MonthlySchedule extends Schedule implements Serializable {
+    private static final long serialVersionUID = 1784053203026917385L;
     private final String type = "Monthly";
 
     /**
@@ -43,16 +47,50 @@ public class MonthlySchedule extends Schedule implements Serializable {
     }
 
     /**
-     * check if a event's start time and end time format is correct(dd HH:mm).
+     * Parse a event's start time and end time, which are in dd HH:mm, in the month of this schedule.
      * @param startTimeString start time of event
      * @param endTimeString end time of event
-     * @return true if date format is correct, false is never returned.
+     * @return start and end time of the event
      * @throws ParseException exception occur when date format is incorrect
      */
-    public boolean checkDateFormat(String startTimeString, String endTimeString)throws ParseException {
-        new SimpleDateFormat("dd HH:mm").parse(startTimeString);
-        new SimpleDateFormat("dd HH:mm").parse(endTimeString);
-        return true;
+    public EventTime parseEventTime(String startTimeString, String endTimeString) throws ParseException {
+        return new EventTime(parseTime(startTimeString), parseTime(endTimeString));
+    }
+
+    /**
+     * Return true iff the event starts and ends in the month of this schedule. It may end at midnight at the end of
+     * the month.
+     * @param time start and end time of an event
+     * @return true iff the event time is within the month of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    public boolean isWithinSchedule(EventTime time) throws ParseException {
+        long start = DateParser.toMillis(getBaseDate().atStartOfDay());
+        long end = DateParser.toMillis(getBaseDate().plusMonths(1).atStartOfDay());
+        return time.getStart() >= start && time.getEnd() <= end;
+    }
+
+    /**
+     * Parse a time in dd HH:mm in the month of this schedule.
+     * @param timeString time in dd HH:mm
+     * @return time in milliseconds
+     * @throws ParseException exception occur when date format is incorrect
+     */
+    private long parseTime(String timeString) throws ParseException {
+        TemporalAccessor fields = DateParser.parse(timeString, DateParser.DAY_TIME);
+        LocalDate month = getBaseDate();
+        LocalDate day = DateParser.date(month.getYear(), month.getMonthValue(),
+                fields.get(ChronoField.DAY_OF_MONTH), timeString);
+        return DateParser.toMillis(day.atTime(DateParser.time(fields)));
+    }
+
+    /**
+     * Parse scheduleDate in yyyy MM.
+     * @return the first day of the month of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    protected LocalDate parseScheduleDate() throws ParseException {
+        return DateParser.parseMonth(scheduleDate);
     }
 
     /**
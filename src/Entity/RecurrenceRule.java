@@ -0,0 +1,219 @@
+package Entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class that stores how an event repeats: the time of its first occurrence, how often it repeats, and when it
+ * stops. The occurrences are not stored, they are computed only for the time range that is asked for.
+ * An occurrence starts at the same local time as the first one, one day, one week or one month later than the
+ * previous one, and is as long as the first one. A monthly event on a day that a month does not have, e.g. the 31st,
+ * is on the last day of that month instead.
+ * It can not be modified once created.
+ *
+ * first: start and end time of the first occurrence.
+ * frequency: either daily, weekly or monthly.
+ * count: the number of occurrences, or 0 if the number is not limited.
+ * until: the latest start time of an occurrence in milliseconds, or Long.MAX_VALUE if it is not limited.
+ * serialVersionUID: fixed like in EventTime, since rules are saved in Schedule.recurrences.
+ *
+ * @author Kexin Sha
+ * @author Jessica Wang
+ * @author Hilda Wang
+ */
+public final class RecurrenceRule implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final EventTime first;
+    private final String frequency;
+    private final int count;
+    private final long until;
+
+    /**
+     * Creates a RecurrenceRule.
+     * @param first start and end time of the first occurrence
+     * @param frequency either daily, weekly or monthly
+     * @param count the number of occurrences, or 0 if the number is not limited
+     * @param until the latest start time of an occurrence in milliseconds, or Long.MAX_VALUE if it is not limited
+     * @throws IllegalArgumentException when frequency is not daily, weekly or monthly, or count is negative
+     */
+    public RecurrenceRule(EventTime first, String frequency, int count, long until) {
+        if (!frequency.equals("daily") && !frequency.equals("weekly") && !frequency.equals("monthly")) {
+            throw new IllegalArgumentException("The frequency should be daily, weekly or monthly.");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of occurrences should not be negative.");
+        }
+        this.first = first;
+        this.frequency = frequency;
+        this.count = count;
+        this.until = until;
+    }
+
+    /**
+     * Getter of first.
+     * @return start and end time of the first occurrence
+     */
+    public EventTime getFirst() {
+        return first;
+    }
+
+    /**
+     * Getter of frequency.
+     * @return either daily, weekly or monthly
+     */
+    public String getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Getter of count.
+     * @return the number of occurrences, or 0 if the number is not limited
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Getter of until.
+     * @return the latest start time of an occurrence in milliseconds, or Long.MAX_VALUE if it is not limited
+     */
+    public long getUntil() {
+        return until;
+    }
+
+    /**
+     * Return true iff the number of occurrences is limited by count or until.
+     * @return true iff the event stops repeating
+     */
+    public boolean isBounded() {
+        return count > 0 || until != Long.MAX_VALUE;
+    }
+
+    /**
+     * Return the same rule, stopping after the occurrence that starts at the given time at the latest.
+     * @param until the latest start time of an occurrence in milliseconds
+     * @return the new rule
+     */
+    public RecurrenceRule withUntil(long until) {
+        return new RecurrenceRule(first, frequency, count, Math.min(this.until, until));
+    }
+
+    /**
+     * Return the k-th occurrence, counted from 0.
+     * @param k index of the occurrence
+     * @return start and end time, null if the event stops repeating before it.
+     */
+    public EventTime getOccurrence(long k) {
+        if (k < 0 || (count > 0 && k >= count)) {
+            return null;
+        }
+        LocalDateTime firstStart = toLocal(first.getStart());
+        LocalDateTime start = frequency.equals("monthly") ? firstStart.plusMonths(k) :
+                firstStart.plusDays(frequency.equals("weekly") ? 7 * k : k);
+        long startMillis = DateParser.toMillis(start);
+        if (startMillis > until) {
+            return null;
+        }
+        return new EventTime(startMillis, startMillis + first.getLength());
+    }
+
+    /**
+     * Return all occurrences that start in [from, to). Only the occurrences close to from are computed, however
+     * many occurrences there are before it.
+     * @param from lower bound of start time in milliseconds, inclusive
+     * @param to upper bound of start time in milliseconds, exclusive
+     * @return list of start and end time, sorted by start time.
+     */
+    public List<EventTime> getOccurrencesStartingBetween(long from, long to) {
+        List<EventTime> occurrences = new ArrayList<>();
+        for (long k = getFirstIndexNotBefore(from); ; k++) {
+            EventTime occurrence = getOccurrence(k);
+            if (occurrence == null || occurrence.getStart() >= to) {
+                return occurrences;
+            }
+            if (occurrence.getStart() >= from) {
+                occurrences.add(occurrence);
+            }
+        }
+    }
+
+    /**
+     * Return the occurrence that starts first after the given time.
+     * @param time a time in milliseconds
+     * @return start and end time, null if no occurrence starts after time.
+     */
+    public EventTime getNextOccurrence(long time) {
+        for (long k = getFirstIndexNotBefore(time); ; k++) {
+            EventTime occurrence = getOccurrence(k);
+            if (occurrence == null || occurrence.getStart() > time) {
+                return occurrence;
+            }
+        }
+    }
+
+    /**
+     * Return an index of an occurrence that starts before the given time, close enough to it that only a few
+     * occurrences are between them, or 0.
+     * @param time a time in milliseconds
+     * @return index of the occurrence
+     */
+    private long getFirstIndexNotBefore(long time) {
+        if (time <= first.getStart()) {
+            return 0;
+        }
+        LocalDateTime firstStart = toLocal(first.getStart());
+        LocalDateTime local = toLocal(time);
+        long k = frequency.equals("monthly") ? ChronoUnit.MONTHS.between(firstStart, local) :
+                ChronoUnit.DAYS.between(firstStart, local) / (frequency.equals("weekly") ? 7 : 1);
+        return Math.max(0, k - 1);
+    }
+
+    /**
+     * Return the local date and time of a time in milliseconds, in the time zone of this computer.
+     * @param time a time in milliseconds
+     * @return local date and time
+     */
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecurrenceRule)) {
+            return false;
+        }
+        RecurrenceRule other = (RecurrenceRule) o;
+        return first.equals(other.first) && frequency.equals(other.frequency) && count == other.count
+                && until == other.until;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((first.hashCode() * 31 + frequency.hashCode()) * 31 + count) * 31 + Long.hashCode(until);
+    }
+
+    /**
+     * Return the first occurrence, how often it repeats and when it stops.
+     * @return rule in a string
+     */
+    @Override
+    public String toString() {
+        String rule = first + " " + frequency;
+        if (count > 0) {
+            rule += ", " + count + " times";
+        }
+        if (until != Long.MAX_VALUE) {
+            rule += ", until " + new Date(until);
+        }
+        return rule;
+    }
+}
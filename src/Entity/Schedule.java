@@ -1,14 +1,20 @@
 package Entity;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.text.ParseException;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
  * An abstract class that has subclasses which are DailySchedule and MonthlySchedule.
  * It has a unique id, type (Daily, Weekly or Monthly) and status (public or private or friend-only).
- * events: a hashmap with key as name, values as list of list of start time and end time， which is the format
- * "yyyy MM dd HH:mm“.
+ * events: a hashmap with key as name, values as list of EventTime, which stores start time and end time in
+ * milliseconds. getEvents gives the same events as list of list of start time and end time in Date. An event has
+ * each time at most once, and its times are in the order they are added, except that removing a time moves the
+ * last time of the event to its place.
  * scheduleName: schedule's name.
  * scheduleDate: schedule's date. If this is a daily schedule, then scheduleDate is the exact date of this
  * schedule. e.g. yyyy mm dd. If this is a weekly schedule, then scheduleDate is the month and year. e.g. yyyy mm dd.
@@ -17,21 +23,43 @@ import java.util.*;
  * status: either public, private or friend-only.
  * scheduleID: unique id.
  * type: type of schedule, either "Monthly", "Daily" or "Weekly"
- * deletedEvents: a hashmap that store all deleted events, key is schedule id, values are events.
+ * deletedEvents: a hashmap that store all deleted events, key is event name, values are EventTime.
+ * recurrences: a hashmap with key as name, values as the RecurrenceRule of the event, for events that repeat. The
+ * occurrences of a rule are not in events, they are computed from the rule when needed. It is null in a schedule
+ * saved before events could repeat.
+ * serialVersionUID: fixed to the value the class had before events were stored as EventTime, so that schedules
+ * saved by any earlier version can still be read. Those store each time as a list of start time and end time in
+ * Date, which readObject converts to EventTime.
+ * startIndex: every EventTime in events, sorted by start time in milliseconds. It is rebuilt from events
+ * when needed, so it is not serialized.
+ * maxEventLength: an upper bound of the length of every event in startIndex, in milliseconds.
+ * positions: a hashmap with key as name, values as a hashmap from each time of the event to its index in the list
+ * of the event in events, so that a time is found and removed in O(1). It is rebuilt from events when needed, so it
+ * is not serialized.
+ * baseDate: the first day of this schedule, parsed from scheduleDate once and cached. It is not serialized.
+ * mergedEventTimes: number of times that were dropped when the schedule was read or its events were set, because
+ * the event already had the same time, which an earlier version allowed. It is not serialized.
  * @author Kexin Sha
  * @author Jessica Wang
  * @author Hilda Wang
  * @version 1.8.0
  */
 public abstract class Schedule implements Serializable {
+    private static final long serialVersionUID = -5961448441429781219L;
     protected String scheduleID;
-    protected HashMap<String, List<List<Date>>> events;
+    protected HashMap<String, List<EventTime>> events;
     protected String scheduleName;
     protected String scheduleDate;
     protected String author;
     protected String status;
     private final String type = "Default";
-    protected HashMap<String, List<Date>> deletedEvents = new HashMap<>();
+    protected HashMap<String, EventTime> deletedEvents = new HashMap<>();
+    protected HashMap<String, RecurrenceRule> recurrences = new HashMap<>();
+    private transient TreeMap<Long, List<EventTime>> startIndex;
+    private transient long maxEventLength;
+    private transient HashMap<String, HashMap<EventTime, Integer>> positions;
+    private transient LocalDate baseDate;
+    private transient int mergedEventTimes;
 
     /**
      * @param scheduleName schedule's name
@@ -49,12 +77,84 @@ public abstract class Schedule implements Serializable {
     }
 
     /**
-     * Returns an HashMap called events of the schedule.
-     * It is a getter method of events.
+     * Returns an HashMap of the events of the schedule, with key as name, values as list of list of start time and
+     * end time. It is a copy of events, so changing it does not change this schedule.
      * @return events of schedule
      */
     public HashMap<String, List<List<Date>>> getEvents() {
-        return events;
+        HashMap<String, List<List<Date>>> copy = new HashMap<>();
+        for (Map.Entry<String, List<EventTime>> entry : events.entrySet()) {
+            List<List<Date>> times = new ArrayList<>(entry.getValue().size());
+            for (EventTime time : entry.getValue()) {
+                times.add(time.toDateList());
+            }
+            copy.put(entry.getKey(), times);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns events of the schedule, with key as name, values as list of EventTime.
+     * It can not be modified, use addEventTime and removeEventTime instead.
+     * @return events of schedule
+     */
+    public Map<String, List<EventTime>> getEventTimes() {
+        return Collections.unmodifiableMap(events);
+    }
+
+    /**
+     * Return true iff this schedule has an event with eventName.
+     * @param eventName event's name
+     * @return true iff the event exists
+     */
+    public boolean hasEvent(String eventName) {
+        return events.containsKey(eventName) || getRecurrenceMap().containsKey(eventName);
+    }
+
+    /**
+     * Return true iff this schedule has no event.
+     * @return true iff there is no event
+     */
+    public boolean hasNoEvent() {
+        return events.isEmpty() && getRecurrenceMap().isEmpty();
+    }
+
+    /**
+     * Returns recurrences, with key as event name, values as the RecurrenceRule of the event.
+     * It can not be modified, use putRecurrence and removeRecurrence instead.
+     * @return recurrences
+     */
+    public Map<String, RecurrenceRule> getRecurrences() {
+        return Collections.unmodifiableMap(getRecurrenceMap());
+    }
+
+    /**
+     * Make the event with eventName repeat by rule, replacing the rule it had.
+     * @param eventName event's name
+     * @param rule how the event repeats
+     */
+    public void putRecurrence(String eventName, RecurrenceRule rule) {
+        getRecurrenceMap().put(eventName, rule);
+    }
+
+    /**
+     * Stop the event with eventName from repeating. The times of the event that are in events are kept.
+     * @param eventName event's name
+     * @return the removed rule, null if the event does not repeat.
+     */
+    public RecurrenceRule removeRecurrence(String eventName) {
+        return getRecurrenceMap().remove(eventName);
+    }
+
+    /**
+     * Return recurrences, create it first if this schedule is saved before events could repeat.
+     * @return recurrences
+     */
+    private HashMap<String, RecurrenceRule> getRecurrenceMap() {
+        if (recurrences == null) {
+            recurrences = new HashMap<>();
+        }
+        return recurrences;
     }
 
     /**
@@ -93,6 +193,24 @@ public abstract class Schedule implements Serializable {
         return scheduleID;
     }
 
+    /**
+     * Sets schedule's id. Only used when a stored schedule is loaded back.
+     * Setter of scheduleID.
+     * @param scheduleID schedule's id
+     */
+    public void setScheduleID(String scheduleID) {
+        this.scheduleID = scheduleID;
+    }
+
+    /**
+     * Gets schedule's name.
+     * Getter of scheduleName.
+     * @return schedule's name
+     */
+    public String getScheduleName() {
+        return scheduleName;
+    }
+
     /**
      * Sets status, if input is something other than "Public", "Private", or "friend-only", then nothing will happen.
      * Setter of status.
@@ -103,23 +221,308 @@ public abstract class Schedule implements Serializable {
     }
 
     /**
-     * Sets events.
+     * Sets events from a HashMap with key as name, values as list of list of start time and end time.
      * Setter of events.
      * @param events the new events HashMap
      */
     public void setEvents(HashMap<String, List<List<Date>>> events) {
-        this.events = events;
+        this.events = new HashMap<>();
+        for (Map.Entry<String, List<List<Date>>> entry : events.entrySet()) {
+            List<EventTime> times = new ArrayList<>(entry.getValue().size());
+            for (List<Date> time : entry.getValue()) {
+                times.add(new EventTime(time.get(0), time.get(1)));
+            }
+            this.events.put(entry.getKey(), times);
+        }
+        this.startIndex = null;
+        this.positions = null;
+        mergeEventTimes();
+    }
+
+    /**
+     * Read a schedule saved by ObjectOutputStream. A schedule saved before events were stored as EventTime has each
+     * time in events and deletedEvents as a list of start time and end time in Date, which is converted to EventTime.
+     * @param in the stream the schedule is read from
+     * @throws IOException exception occur when the stream can not be read
+     * @throws ClassNotFoundException exception occur when a class in the stream is not found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (events == null) {
+            events = new HashMap<>();
+        }
+        for (Map.Entry<String, List<EventTime>> entry : events.entrySet()) {
+            List<?> times = entry.getValue();
+            List<EventTime> converted = new ArrayList<>(times.size());
+            for (Object time : times) {
+                converted.add(toEventTime(time));
+            }
+            entry.setValue(converted);
+        }
+        if (deletedEvents == null) {
+            deletedEvents = new HashMap<>();
+        }
+        for (Map.Entry<String, ?> entry : deletedEvents.entrySet()) {
+            ((Map.Entry<String, EventTime>) entry).setValue(toEventTime(entry.getValue()));
+        }
+        mergeEventTimes();
+    }
+
+    /**
+     * Keep each time of an event once, in the order they are added, and add the number of dropped times to
+     * mergedEventTimes.
+     */
+    private void mergeEventTimes() {
+        for (List<EventTime> times : events.values()) {
+            Set<EventTime> kept = new HashSet<>();
+            int size = times.size();
+            times.removeIf(time -> !kept.add(time));
+            mergedEventTimes += size - times.size();
+        }
+    }
+
+    /**
+     * Getter of mergedEventTimes.
+     * @return number of times that were dropped when the schedule was read, because the event already had them.
+     */
+    public int getMergedEventTimes() {
+        return mergedEventTimes;
+    }
+
+    /**
+     * Convert a time read from a saved schedule to EventTime.
+     * @param time an EventTime, or a list of start time and end time in Date
+     * @return the time as EventTime
+     * @throws InvalidObjectException exception occur when time is neither
+     */
+    private static EventTime toEventTime(Object time) throws InvalidObjectException {
+        if (time instanceof EventTime) {
+            return (EventTime) time;
+        }
+        if (time instanceof List && ((List<?>) time).size() == 2 && ((List<?>) time).get(0) instanceof Date
+                && ((List<?>) time).get(1) instanceof Date) {
+            return new EventTime((Date) ((List<?>) time).get(0), (Date) ((List<?>) time).get(1));
+        }
+        throw new InvalidObjectException("An event time of the schedule can not be read: " + time);
+    }
+
+    /**
+     * Add a time to the event with eventName, and to startIndex and positions.
+     * @param eventName event's name
+     * @param time start and end time
+     * @return true iff the time is added, false if the event already has this time.
+     */
+    public boolean addEventTime(String eventName, EventTime time) {
+        getStartIndex();
+        HashMap<EventTime, Integer> eventPositions = positions.computeIfAbsent(eventName, k -> new HashMap<>());
+        if (eventPositions.containsKey(time)) {
+            return false;
+        }
+        List<EventTime> times = events.computeIfAbsent(eventName, k -> new ArrayList<>(1));
+        eventPositions.put(time, times.size());
+        times.add(time);
+        indexEventTime(time);
+        return true;
+    }
+
+    /**
+     * Return true iff the event with eventName has the given time.
+     * @param eventName event's name
+     * @param time start and end time
+     * @return true iff the event has the time
+     */
+    public boolean hasEventTime(String eventName, EventTime time) {
+        HashMap<EventTime, Integer> eventPositions = getPositions().get(eventName);
+        return eventPositions != null && eventPositions.containsKey(time);
+    }
+
+    /**
+     * Remove the time with the given start and end time from the event with eventName, and from startIndex and
+     * positions. The time is found by positions, and the last time of the event is moved to its place, so that
+     * nothing is shifted. The event is removed from events once it has no time left.
+     * @param eventName event's name
+     * @param time start and end time of the event
+     * @return true iff the time is removed, false if there is no such time.
+     */
+    public boolean removeEventTime(String eventName, EventTime time) {
+        getStartIndex();
+        HashMap<EventTime, Integer> eventPositions = positions.get(eventName);
+        Integer position = eventPositions == null ? null : eventPositions.remove(time);
+        if (position == null) {
+            return false;
+        }
+        List<EventTime> times = events.get(eventName);
+        EventTime last = times.remove(times.size() - 1);
+        if (position < times.size()) {
+            times.set(position, last);
+            eventPositions.put(last, position);
+        }
+        if (times.isEmpty()) {
+            events.remove(eventName);
+            positions.remove(eventName);
+        }
+        List<EventTime> sameStart = startIndex.get(time.getStart());
+        sameStart.remove(time);
+        if (sameStart.isEmpty()) {
+            startIndex.remove(time.getStart());
+        }
+        return true;
+    }
+
+    /**
+     * Return the time of an event that starts first after the given time, including the occurrences of the
+     * events that repeat, which are computed from their rules.
+     * @param time a time in milliseconds
+     * @return start and end time, null if no event starts after time.
+     */
+    public EventTime getNextEventTime(long time) {
+        Map.Entry<Long, List<EventTime>> entry = getStartIndex().higherEntry(time);
+        EventTime next = entry == null ? null : entry.getValue().get(0);
+        for (RecurrenceRule rule : getRecurrenceMap().values()) {
+            EventTime occurrence = rule.getNextOccurrence(time);
+            if (occurrence != null && (next == null || occurrence.getStart() < next.getStart())) {
+                next = occurrence;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Return the time of all events that start in [from, to), including the occurrences of the events that repeat
+     * in [from, to), which are computed from their rules.
+     * @param from lower bound of start time in milliseconds, inclusive
+     * @param to upper bound of start time in milliseconds, exclusive
+     * @return list of start and end time, sorted by start time.
+     */
+    public List<EventTime> getEventTimesStartingBetween(long from, long to) {
+        List<EventTime> times = new ArrayList<>();
+        if (from >= to) {
+            return times;
+        }
+        for (List<EventTime> sameStart : getStartIndex().subMap(from, true, to, false).values()) {
+            times.addAll(sameStart);
+        }
+        if (!getRecurrenceMap().isEmpty()) {
+            for (RecurrenceRule rule : recurrences.values()) {
+                times.addAll(rule.getOccurrencesStartingBetween(from, to));
+            }
+            times.sort(Comparator.comparingLong(EventTime::getStart));
+        }
+        return times;
+    }
+
+    /**
+     * Getter of maxEventLength, which also covers the occurrences of the events that repeat.
+     * @return an upper bound of the length of every event, in milliseconds.
+     */
+    public long getMaxEventLength() {
+        getStartIndex();
+        long max = maxEventLength;
+        for (RecurrenceRule rule : getRecurrenceMap().values()) {
+            max = Math.max(max, rule.getFirst().getLength());
+        }
+        return max;
+    }
+
+    /**
+     * Return startIndex, rebuild it from events first if it has not been built. positions is built with it, so a
+     * method that changes events calls this first.
+     * @return startIndex
+     */
+    private TreeMap<Long, List<EventTime>> getStartIndex() {
+        if (startIndex == null) {
+            getPositions();
+            startIndex = new TreeMap<>();
+            maxEventLength = 0;
+            for (List<EventTime> times : events.values()) {
+                for (EventTime time : times) {
+                    indexEventTime(time);
+                }
+            }
+        }
+        return startIndex;
     }
 
     /**
-     * check if a event's start time and end time format is correct.
+     * Return positions, rebuild it from events first if it has not been built.
+     * @return positions
+     */
+    private HashMap<String, HashMap<EventTime, Integer>> getPositions() {
+        if (positions == null) {
+            positions = new HashMap<>();
+            for (Map.Entry<String, List<EventTime>> entry : events.entrySet()) {
+                List<EventTime> times = entry.getValue();
+                HashMap<EventTime, Integer> eventPositions = new HashMap<>();
+                for (int i = 0; i < times.size(); i++) {
+                    eventPositions.put(times.get(i), i);
+                }
+                positions.put(entry.getKey(), eventPositions);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Add a start and end time to startIndex and update maxEventLength.
+     * @param time start and end time
+     */
+    private void indexEventTime(EventTime time) {
+        startIndex.computeIfAbsent(time.getStart(), k -> new ArrayList<>(1)).add(time);
+        maxEventLength = Math.max(maxEventLength, time.getLength());
+    }
+
+    /**
+     * check if a event's start time and end time format is correct, and the event is within this schedule.
+     * @param startTimeString start time of event
+     * @param endTimeString end time of event
+     * @return true if date format is correct and the event is within this schedule, false otherwise.
+     * @throws ParseException exception occur when date format is incorrect
+     */
+    public boolean checkDateFormat(String startTimeString, String endTimeString) throws ParseException {
+        return isWithinSchedule(parseEventTime(startTimeString, endTimeString));
+    }
+
+    /**
+     * Parse a event's start time and end time, which are in the format of this type of schedule.
      * It is an abstract method, we will overwrite it in the subclasses.
      * @param startTimeString start time of event
      * @param endTimeString end time of event
-     * @return true if date format is correct, false is never returned.
+     * @return start and end time of the event
      * @throws ParseException exception occur when date format is incorrect
      */
-    public abstract boolean checkDateFormat(String startTimeString, String endTimeString) throws ParseException;
+    public abstract EventTime parseEventTime(String startTimeString, String endTimeString) throws ParseException;
+
+    /**
+     * Return true iff the event time is within the date range of this schedule.
+     * Every time is within a schedule unless it is overwritten in the subclass.
+     * @param time start and end time of an event
+     * @return true iff the event time is within this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    public boolean isWithinSchedule(EventTime time) throws ParseException {
+        return true;
+    }
+
+    /**
+     * Gets the first day of this schedule. scheduleDate is parsed at the first call only.
+     * @return the first day of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    public LocalDate getBaseDate() throws ParseException {
+        if (baseDate == null) {
+            baseDate = parseScheduleDate();
+        }
+        return baseDate;
+    }
+
+    /**
+     * Parse scheduleDate, which is in the format of this type of schedule.
+     * It is an abstract method, we will overwrite it in the subclasses.
+     * @return the first day of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    protected abstract LocalDate parseScheduleDate() throws ParseException;
 
     /**
      * Gets type of schedule.
@@ -136,18 +539,68 @@ public abstract class Schedule implements Serializable {
      */
     public abstract String toString();
 
-    /** Getter of deletedEvents
+    /** Getter of deletedEvents, with each EventTime given as a list of start time and end time.
+     * It is a copy of deletedEvents, so changing it does not change this schedule.
      * @return deletedEvents
      */
     public HashMap<String, List<Date>> getDeletedEvents() {
-        return deletedEvents;
+        HashMap<String, List<Date>> copy = new HashMap<>();
+        for (Map.Entry<String, EventTime> entry : deletedEvents.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().toDateList());
+        }
+        return copy;
     }
 
     /**
      * Setter of deletedEvents
-     * @param deletedEvents going to be set.
+     * @param deletedEvents going to be set, with each value as a list of start time and end time.
      */
     public void setDeletedEvents(HashMap<String, List<Date>> deletedEvents) {
-        this.deletedEvents = deletedEvents;
+        this.deletedEvents = new HashMap<>();
+        for (Map.Entry<String, List<Date>> entry : deletedEvents.entrySet()) {
+            this.deletedEvents.put(entry.getKey(), new EventTime(entry.getValue().get(0), entry.getValue().get(1)));
+        }
+    }
+
+    /**
+     * Returns deletedEvents, with key as event name, values as EventTime.
+     * It can not be modified, use putDeletedEventTime and removeDeletedEventTime instead.
+     * @return deletedEvents
+     */
+    public Map<String, EventTime> getDeletedEventTimes() {
+        return Collections.unmodifiableMap(deletedEvents);
+    }
+
+    /**
+     * Return the most recently deleted time of the event with eventName.
+     * @param eventName event's name
+     * @return start and end time, null if no event with eventName is deleted.
+     */
+    public EventTime getDeletedEventTime(String eventName) {
+        return deletedEvents.get(eventName);
+    }
+
+    /**
+     * Store time as the most recently deleted time of the event with eventName.
+     * @param eventName event's name
+     * @param time start and end time
+     */
+    public void putDeletedEventTime(String eventName, EventTime time) {
+        deletedEvents.put(eventName, time);
+    }
+
+    /**
+     * Remove the event with eventName from deletedEvents.
+     * @param eventName event's name
+     */
+    public void removeDeletedEventTime(String eventName) {
+        deletedEvents.remove(eventName);
+    }
+
+    /**
+     * Remove all events from deletedEvents.
+     */
+    public void clearDeletedEvents() {
+        deletedEvents.clear();
     }
 }
\ No newline at end of file
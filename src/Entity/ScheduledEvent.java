@@ -0,0 +1,109 @@
+package Entity;
+
+/**
+ * A class that stores one time of an event together with the schedule it belongs to, as found by a query over the
+ * events of many schedules. It can not be modified once created.
+ * Its id, given by getEventID, is made of the schedule's id, the start and end time and the event name, so it stays
+ * the same while the event exists, also after the schedules are saved and read again, and the event can be found
+ * from it without any other index.
+ *
+ * scheduleID: id of the schedule the event belongs to.
+ * eventName: event's name.
+ * time: start and end time of the event.
+ *
+ * @author Kexin Sha
+ * @author Jessica Wang
+ * @author Hilda Wang
+ */
+public final class ScheduledEvent {
+    private final String scheduleID;
+    private final String eventName;
+    private final EventTime time;
+
+    /**
+     * @param scheduleID id of the schedule the event belongs to
+     * @param eventName event's name
+     * @param time start and end time of the event
+     */
+    public ScheduledEvent(String scheduleID, String eventName, EventTime time) {
+        this.scheduleID = scheduleID;
+        this.eventName = eventName;
+        this.time = time;
+    }
+
+    /**
+     * Return the event whose id is eventID.
+     * @param eventID id given by getEventID
+     * @return the event, null if eventID is not in the format of an id
+     */
+    public static ScheduledEvent parseEventID(String eventID) {
+        String[] parts = eventID.split("/", 4);
+        if (parts.length < 4) {
+            return null;
+        }
+        try {
+            return new ScheduledEvent(parts[0], parts[3], new EventTime(Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2])));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the id of this event, which is schedule's id, start time, end time and event name separated by "/".
+     * @return id of the event
+     */
+    public String getEventID() {
+        return scheduleID + "/" + time.getStart() + "/" + time.getEnd() + "/" + eventName;
+    }
+
+    /**
+     * Getter of scheduleID.
+     * @return id of the schedule the event belongs to
+     */
+    public String getScheduleID() {
+        return scheduleID;
+    }
+
+    /**
+     * Getter of eventName.
+     * @return event's name
+     */
+    public String getEventName() {
+        return eventName;
+    }
+
+    /**
+     * Getter of time.
+     * @return start and end time of the event
+     */
+    public EventTime getTime() {
+        return time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScheduledEvent)) {
+            return false;
+        }
+        ScheduledEvent other = (ScheduledEvent) o;
+        return scheduleID.equals(other.scheduleID) && eventName.equals(other.eventName) && time.equals(other.time);
+    }
+
+    @Override
+    public int hashCode() {
+        return (scheduleID.hashCode() * 31 + eventName.hashCode()) * 31 + time.hashCode();
+    }
+
+    /**
+     * Return event name and time.
+     * @return event in a string
+     */
+    @Override
+    public String toString() {
+        return eventName + " " + time;
+    }
+}
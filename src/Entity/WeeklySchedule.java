@@ -2,8 +2,9 @@ package Entity;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 
 /**
  * An subclass of the parent class Schedule.
@@ -16,12 +17,14 @@ import java.util.Date;
  * scheduleID: unique id.
  * type: type of schedule, either "Monthly", "Daily" or "Weekly"
  * deletedEvents: a hashmap that store all deleted events, key is schedule id, values are events.
+ * serialVersionUID: fixed to the value of the class before this version, as in Schedule.
  * @author Kexin Sha
  * @author Jessica Wang
  * @author Hilda Wang
  * @version 1.8.0
  */
 public class WeeklySchedule extends Schedule implements Serializable {
+    private static final long serialVersionUID = 3815737734881331594L;
     private final String type = "Weekly";
 
     /**
@@ -44,26 +47,53 @@ public class WeeklySchedule extends Schedule implements Serializable {
     }
 
     /**
-     * check if a event's start time and end time format is correct(in HH:mm).
+     * Parse a event's start time and end time, which are in MM dd HH:mm, in the year of this schedule.
      * @param startTimeString start time of event
      * @param endTimeString end time of event
-     * @return true if date format is correct, false is never returned.
+     * @return start and end time of the event
      * @throws ParseException exception occur when date format is incorrect
      */
-    public boolean checkDateFormat(String startTimeString, String endTimeString) throws ParseException {
-        String[] splited = scheduleDate.split(" ");
-        String year = splited[0];
-        Date startTime = new SimpleDateFormat("yyyy MM dd HH:mm").parse(year + " " + startTimeString);
-        Date endTime = new SimpleDateFormat("yyyy MM dd HH:mm").parse(year + " " + endTimeString);
-        Date newScheduleDate = new SimpleDateFormat("yyyy MM dd HH:mm").parse(scheduleDate + " 00:00");
-        double diffStart = (startTime.getTime()- newScheduleDate.getTime());
-        double diffEnd = (endTime.getTime() - newScheduleDate.getTime());
+    public EventTime parseEventTime(String startTimeString, String endTimeString) throws ParseException {
+        return new EventTime(parseTime(startTimeString), parseTime(endTimeString));
+    }
+
+    /**
+     * Return true iff the event starts after the first day of this schedule begins, and ends within 168 hours
+     * from then.
+     * @param time start and end time of an event
+     * @return true iff the event time is within the week of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    public boolean isWithinSchedule(EventTime time) throws ParseException {
+        long weekStart = DateParser.toMillis(getBaseDate().atStartOfDay());
         double denominator = (60 * 60 * 1000);
-        double durationStart = diffStart / denominator;
-        double durationEnd = diffEnd / denominator;
+        double durationStart = (time.getStart() - weekStart) / denominator;
+        double durationEnd = (time.getEnd() - weekStart) / denominator;
         return !(durationStart < 0) && !(durationEnd > 168);
     }
 
+    /**
+     * Parse a time in MM dd HH:mm in the year of this schedule.
+     * @param timeString time in MM dd HH:mm
+     * @return time in milliseconds
+     * @throws ParseException exception occur when date format is incorrect
+     */
+    private long parseTime(String timeString) throws ParseException {
+        TemporalAccessor fields = DateParser.parse(timeString, DateParser.MONTH_DAY_TIME);
+        LocalDate day = DateParser.date(getBaseDate().getYear(), fields.get(ChronoField.MONTH_OF_YEAR),
+                fields.get(ChronoField.DAY_OF_MONTH), timeString);
+        return DateParser.toMillis(day.atTime(DateParser.time(fields)));
+    }
+
+    /**
+     * Parse scheduleDate in yyyy MM dd.
+     * @return the first day of the week of this schedule
+     * @throws ParseException exception occur when scheduleDate is in incorrect format
+     */
+    protected LocalDate parseScheduleDate() throws ParseException {
+        return DateParser.parseDate(scheduleDate);
+    }
+
     /**
      * print schedule
      * @return schedule in a string
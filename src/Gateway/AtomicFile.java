@@ -0,0 +1,153 @@
+package Gateway;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * A class that replaces a data file as a whole, so that a crash or an IOException while saving never leaves a
+ * half written file behind.
+ *
+ * A new version is written to a temporary file next to the data file and forced to disk. Only then the data file
+ * becomes the backup file, which is the previous generation, and the temporary file becomes the data file. Both
+ * steps are renames, so at any time the data file or the backup file is complete. A reader uses the data file,
+ * or the backup file when the data file is missing, empty or can not be read.
+ *
+ * path: the data file
+ * tempPath: the temporary file the new version is written to
+ * backupPath: the previous generation of the data file
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class AtomicFile {
+	private Path path;
+	private Path tempPath;
+	private Path backupPath;
+
+	/**
+	 * Constructor for AtomicFile object.
+	 *
+	 * @param path path of the data file
+	 */
+	public AtomicFile(String path) {
+		this.path = Paths.get(path);
+		this.tempPath = Paths.get(path + ".tmp");
+		this.backupPath = Paths.get(path + ".bak");
+	}
+
+	/**
+	 * Return the data file.
+	 *
+	 * @return the data file
+	 */
+	public File getFile() {
+		return path.toFile();
+	}
+
+	/**
+	 * Return the previous generation of the data file.
+	 *
+	 * @return the backup file
+	 */
+	public File getBackupFile() {
+		return backupPath.toFile();
+	}
+
+	/**
+	 * Start writing a new version of the data file. The returned stream writes to the temporary file, and must be
+	 * passed to finishWrite when everything is written, or to failWrite when writing fails.
+	 *
+	 * @return output of the temporary file
+	 * @throws IOException when the temporary file can not be created
+	 */
+	public FileOutputStream startWrite() throws IOException {
+		return new FileOutputStream(tempPath.toFile());
+	}
+
+	/**
+	 * Force the written temporary file to disk, then make it the data file, keeping the old data file as the backup.
+	 * An empty data file does not replace a backup file that is not empty, since the backup file is what was read.
+	 *
+	 * @param out output returned by startWrite, which has been flushed
+	 * @throws IOException when the file can not be forced to disk or renamed, in which case the data file is unchanged
+	 */
+	public void finishWrite(FileOutputStream out) throws IOException {
+		try {
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		if (Files.exists(path) && readPath() == path) {
+			Files.move(path, backupPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+	}
+
+	/**
+	 * Give up the new version. The temporary file is deleted and the data file is unchanged.
+	 *
+	 * @param out output returned by startWrite
+	 */
+	public void failWrite(FileOutputStream out) {
+		try {
+			out.close();
+		} catch (IOException e) {
+			// the temporary file is deleted anyway
+		}
+		tempPath.toFile().delete();
+	}
+
+	/**
+	 * Open the data file for reading, or the backup file when the data file is missing or empty and the backup file
+	 * is not, e.g. when the program stopped between the two renames of finishWrite.
+	 *
+	 * @return input of the file
+	 * @throws FileNotFoundException when neither file exists
+	 */
+	public FileInputStream openRead() throws FileNotFoundException {
+		return new FileInputStream(readPath().toFile());
+	}
+
+	/**
+	 * Return whether there is a data file or a backup file that is not empty.
+	 *
+	 * @return true if there is something to read
+	 */
+	public boolean exists() {
+		return !isEmpty(readPath());
+	}
+
+	/**
+	 * Return the file a reader uses: the data file, or the backup file when the data file is missing or empty and
+	 * the backup file is not.
+	 *
+	 * @return path of the file to read
+	 */
+	private Path readPath() {
+		return isEmpty(path) && !isEmpty(backupPath) ? backupPath : path;
+	}
+
+	/**
+	 * Return whether a file is missing or empty.
+	 *
+	 * @param file path of the file
+	 * @return true if there is nothing to read in the file
+	 */
+	private static boolean isEmpty(Path file) {
+		return file.toFile().length() == 0;
+	}
+
+	/**
+	 * Force the renames to disk. Not every system can open a directory, so this is only done where it is possible.
+	 */
+	private void syncDirectory() {
+		Path directory = path.toAbsolutePath().getParent();
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// the renames are still done, they are only not forced to disk yet
+		}
+	}
+}
@@ -0,0 +1,396 @@
+package Gateway;
+
+import Entity.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A class that writes and reads entities in a compact binary format, which is used by BinaryFileListener.
+ * Unlike Java serialization, only the values of the fields are stored, so a file does not depend on the shape of
+ * the entity classes.
+ *
+ * Every file starts with MAGIC and the format VERSION it is written in. Every entity is stored as a record: its
+ * length in bytes followed by its fields. A reader skips the fields at the end of a record it does not know, so a
+ * file written by a newer version can still be read, and fields added in a newer version are only read when the
+ * file's version has them.
+ * Version 2: ScheduleData.bin no longer stores the schedules shared with each user, since they are found from the
+ * friends of the user.
+ * Version 3: every schedule also stores the rules of its events that repeat.
+ *
+ * version: the format version of the file being read
+ * recordBuffer: the fields of the record being written
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class BinaryCodec {
+	public static final int MAGIC = 0x43534142;
+	public static final short VERSION = 3;
+	private short version = VERSION;
+	private ByteArrayOutputStream recordBuffer;
+
+	/**
+	 * Write MAGIC and VERSION at the start of a file.
+	 *
+	 * @param out output of the file
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+	}
+
+	/**
+	 * Read MAGIC and the format version at the start of a file. Records read after this are read in that version.
+	 *
+	 * @param in input of the file
+	 * @throws IOException when the file is not in this format
+	 */
+	public void readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("This is not a binary data file.");
+		}
+		version = in.readShort();
+	}
+
+	/**
+	 * Return the format version of the file being read.
+	 *
+	 * @return format version
+	 */
+	public short getVersion() {
+		return version;
+	}
+
+	/**
+	 * Write a PermanentUser record.
+	 *
+	 * @param out output of the file
+	 * @param user user to write
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeUser(DataOutputStream out, PermanentUser user) throws IOException {
+		DataOutputStream record = startRecord();
+		writeString(record, user.getUserId());
+		writeString(record, user.getEmail());
+		writeString(record, user.getPassword());
+		writeString(record, user.getUserType());
+		writeStrings(record, user.getFriends());
+		endRecord(out);
+	}
+
+	/**
+	 * Read a PermanentUser record.
+	 *
+	 * @param in input of the file
+	 * @return the user
+	 * @throws IOException when the input can not be read
+	 */
+	public PermanentUser readUser(DataInputStream in) throws IOException {
+		DataInputStream record = readRecord(in);
+		String userId = readString(record);
+		String email = readString(record);
+		String password = readString(record);
+		PermanentUser user = new PermanentUser(email, password, readString(record));
+		user.setUserId(userId);
+		user.getFriends().addAll(readStrings(record));
+		return user;
+	}
+
+	/**
+	 * Write a Template record.
+	 *
+	 * @param out output of the file
+	 * @param template template to write
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeTemplate(DataOutputStream out, Template template) throws IOException {
+		DataOutputStream record = startRecord();
+		writeString(record, template.getTemplateType());
+		writeString(record, template.getTemplateId());
+		record.writeDouble(template.getMinTimeBtwEvents());
+		record.writeDouble(template.getMinTimeOfEvent());
+		record.writeDouble(template.getMaxTimeOfEvent());
+		endRecord(out);
+	}
+
+	/**
+	 * Read a Template record.
+	 *
+	 * @param in input of the file
+	 * @return the template
+	 * @throws IOException when the input can not be read or the template type is unknown
+	 */
+	public Template readTemplate(DataInputStream in) throws IOException {
+		DataInputStream record = readRecord(in);
+		String type = readString(record);
+		Template template;
+		if ("DailyTemplate".equals(type)) {
+			template = new DailyTemplate();
+		} else if ("WeeklyTemplate".equals(type)) {
+			template = new WeeklyTemplate();
+		} else if ("MonthlyTemplate".equals(type)) {
+			template = new MonthlyTemplate();
+		} else {
+			throw new IOException("Unknown template type: " + type);
+		}
+		template.templateId = readString(record);
+		template.setMinTimeBtwEvents(record.readDouble());
+		template.setMinTimeOfEvent(record.readDouble());
+		template.setMaxTimeOfEvent(record.readDouble());
+		return template;
+	}
+
+	/**
+	 * Write a Schedule record, including its events, deletedEvents and the rules of its events that repeat.
+	 *
+	 * @param out output of the file
+	 * @param s schedule to write
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeSchedule(DataOutputStream out, Schedule s) throws IOException {
+		DataOutputStream record = startRecord();
+		writeScheduleFields(record, s);
+		endRecord(out);
+	}
+
+	/**
+	 * Read a Schedule record.
+	 *
+	 * @param in input of the file
+	 * @return the schedule
+	 * @throws IOException when the input can not be read or the schedule type is unknown
+	 */
+	public Schedule readSchedule(DataInputStream in) throws IOException {
+		return readScheduleFields(readRecord(in));
+	}
+
+	/**
+	 * Write a Message record. An attached schedule is written as a copy, like it was in ChatHistory.ser.
+	 *
+	 * @param out output of the file
+	 * @param message message to write
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeMessage(DataOutputStream out, Message message) throws IOException {
+		DataOutputStream record = startRecord();
+		writeString(record, message.getSenderID());
+		writeString(record, message.getReceiverID());
+		writeString(record, message.getContent());
+		writeString(record, message.getTime());
+		record.writeBoolean(message.getCreation() != null);
+		if (message.getCreation() != null) {
+			writeScheduleFields(record, message.getCreation());
+		}
+		endRecord(out);
+	}
+
+	/**
+	 * Read a Message record.
+	 *
+	 * @param in input of the file
+	 * @return the message
+	 * @throws IOException when the input can not be read
+	 */
+	public Message readMessage(DataInputStream in) throws IOException {
+		DataInputStream record = readRecord(in);
+		Message message = new Message(readString(record), readString(record), readString(record));
+		message.setTime(readString(record));
+		if (record.readBoolean()) {
+			message.setCreation(readScheduleFields(record));
+		}
+		return message;
+	}
+
+	/**
+	 * Write a string that may be null.
+	 *
+	 * @param out output
+	 * @param s the string
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeString(DataOutput out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Read a string that may be null.
+	 *
+	 * @param in input
+	 * @return the string
+	 * @throws IOException when the input can not be read
+	 */
+	public String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Write a list of strings.
+	 *
+	 * @param out output
+	 * @param strings the strings
+	 * @throws IOException when the output can not be written
+	 */
+	public void writeStrings(DataOutput out, Collection<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings) {
+			writeString(out, s);
+		}
+	}
+
+	/**
+	 * Read a list of strings.
+	 *
+	 * @param in input
+	 * @return the strings
+	 * @throws IOException when the input can not be read
+	 */
+	public ArrayList<String> readStrings(DataInput in) throws IOException {
+		int size = in.readInt();
+		ArrayList<String> strings = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			strings.add(readString(in));
+		}
+		return strings;
+	}
+
+	/**
+	 * Write the fields of a schedule.
+	 *
+	 * @param out output
+	 * @param s the schedule
+	 * @throws IOException when the output can not be written
+	 */
+	private void writeScheduleFields(DataOutputStream out, Schedule s) throws IOException {
+		writeString(out, s.getType());
+		writeString(out, s.getScheduleID());
+		writeString(out, s.getScheduleName());
+		writeString(out, s.getScheduleDate());
+		writeString(out, s.getAuthor());
+		writeString(out, s.getStatus());
+		Map<String, List<EventTime>> events = s.getEventTimes();
+		out.writeInt(events.size());
+		for (Map.Entry<String, List<EventTime>> entry : events.entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (EventTime time : entry.getValue()) {
+				out.writeLong(time.getStart());
+				out.writeLong(time.getEnd());
+			}
+		}
+		Map<String, EventTime> deleted = s.getDeletedEventTimes();
+		out.writeInt(deleted.size());
+		for (Map.Entry<String, EventTime> entry : deleted.entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeLong(entry.getValue().getStart());
+			out.writeLong(entry.getValue().getEnd());
+		}
+		Map<String, RecurrenceRule> rules = s.getRecurrences();
+		out.writeInt(rules.size());
+		for (Map.Entry<String, RecurrenceRule> entry : rules.entrySet()) {
+			RecurrenceRule rule = entry.getValue();
+			writeString(out, entry.getKey());
+			out.writeLong(rule.getFirst().getStart());
+			out.writeLong(rule.getFirst().getEnd());
+			writeString(out, rule.getFrequency());
+			out.writeInt(rule.getCount());
+			out.writeLong(rule.getUntil());
+		}
+	}
+
+	/**
+	 * Read the fields of a schedule.
+	 *
+	 * @param in input
+	 * @return the schedule
+	 * @throws IOException when the input can not be read or the schedule type is unknown
+	 */
+	private Schedule readScheduleFields(DataInputStream in) throws IOException {
+		String type = readString(in);
+		String scheduleID = readString(in);
+		String scheduleName = readString(in);
+		String scheduleDate = readString(in);
+		String author = readString(in);
+		String status = readString(in);
+		Schedule s;
+		if ("Daily".equals(type)) {
+			s = new DailySchedule(scheduleName, scheduleDate, author, status);
+		} else if ("Weekly".equals(type)) {
+			s = new WeeklySchedule(scheduleName, scheduleDate, author, status);
+		} else if ("Monthly".equals(type)) {
+			s = new MonthlySchedule(scheduleName, scheduleDate, author, status);
+		} else {
+			throw new IOException("Unknown schedule type: " + type);
+		}
+		s.setScheduleID(scheduleID);
+		int eventCount = in.readInt();
+		for (int i = 0; i < eventCount; i++) {
+			String eventName = readString(in);
+			int timeCount = in.readInt();
+			for (int j = 0; j < timeCount; j++) {
+				s.addEventTime(eventName, new EventTime(in.readLong(), in.readLong()));
+			}
+		}
+		int deletedCount = in.readInt();
+		for (int i = 0; i < deletedCount; i++) {
+			s.putDeletedEventTime(readString(in), new EventTime(in.readLong(), in.readLong()));
+		}
+		if (version >= 3) {
+			int ruleCount = in.readInt();
+			for (int i = 0; i < ruleCount; i++) {
+				String eventName = readString(in);
+				EventTime first = new EventTime(in.readLong(), in.readLong());
+				s.putRecurrence(eventName, new RecurrenceRule(first, readString(in), in.readInt(), in.readLong()));
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * Start a new record. Fields written to the returned output are written to out by endRecord.
+	 *
+	 * @return output of the record
+	 */
+	private DataOutputStream startRecord() {
+		recordBuffer = new ByteArrayOutputStream();
+		return new DataOutputStream(recordBuffer);
+	}
+
+	/**
+	 * Write the length and the fields of the record started by startRecord.
+	 *
+	 * @param out output of the file
+	 * @throws IOException when the output can not be written
+	 */
+	private void endRecord(DataOutputStream out) throws IOException {
+		out.writeInt(recordBuffer.size());
+		recordBuffer.writeTo(out);
+	}
+
+	/**
+	 * Read a whole record. Fields that are not read from the returned input are skipped.
+	 *
+	 * @param in input of the file
+	 * @return input of the record
+	 * @throws IOException when the input can not be read
+	 */
+	private DataInputStream readRecord(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
@@ -0,0 +1,421 @@
+package Gateway;
+
+import Controller.LoginSystem;
+import Entity.Message;
+import Entity.PermanentUser;
+import Entity.Schedule;
+import Entity.Template;
+import UseCase.MessageManager;
+import UseCase.ScheduleManager;
+import UseCase.TemplateManager;
+import UseCase.UserManager;
+import java.io.*;
+import java.util.*;
+
+/**
+ * A observer class. It implements FileListener interface.
+ * It is a storage backend that reads and saves the same data as ReadFileListener and SaveFileListener, but in
+ * the binary format of BinaryCodec, in .bin files instead of .ser files.
+ * The welcome message is still read from WelcomeMsg.txt by welMsgReader.
+ *
+ * um: UserManager object
+ * tm: TemplateManager object
+ * sm: ScheduleManager object
+ * mm: MessageManager object
+ * welMsgReader: ReadFileListener that reads the welcome message
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class BinaryFileListener implements FileListener{
+	private static final String DIRECTORY = "phase2/";
+	private UserManager um;
+	private TemplateManager tm;
+	private ScheduleManager sm;
+	private MessageManager mm;
+	private ReadFileListener welMsgReader;
+
+	/**
+	 * Constructor for BinaryFileListener object. It initialize all the variables.
+	 *
+	 * @param tm template manager
+	 * @param sm schedule manager
+	 * @param mm message manager
+	 * @param ls login system
+	 */
+	public BinaryFileListener(TemplateManager tm, ScheduleManager sm, MessageManager mm, LoginSystem ls){
+		this.tm = tm;
+		this.sm = sm;
+		this.mm = mm;
+		this.um = ls.getUm();
+		this.welMsgReader = new ReadFileListener(tm, sm, mm, ls);
+	}
+
+	/**
+	 * Save the .bin file based on actionType
+	 *
+	 * The file is replaced as a whole by AtomicFile, and the previous version is kept as its backup file.
+	 * saveTempInfo also saves TempInfoExpiry, like SaveFileListener does.
+	 *
+	 * @param actionType type of files need to save, e.g. saveScheduleData
+	 * @throws IOException when the file can not be written, in which case the saved file is unchanged
+	 */
+	public void saveBinFile(String actionType) throws IOException {
+		String fileName = fileName(actionType.substring(4));
+		writeBinFile(fileName);
+		if (fileName.equals("TempInfo")){
+			writeBinFile("TempInfoExpiry");
+		}
+	}
+
+	/**
+	 * Write one .bin file.
+	 *
+	 * @param fileName file name without extension
+	 * @throws IOException when the file can not be written, in which case the saved file is unchanged
+	 */
+	private void writeBinFile(String fileName) throws IOException {
+		BinaryCodec codec = new BinaryCodec();
+		AtomicFile file = new AtomicFile(DIRECTORY + fileName + ".bin");
+		FileOutputStream output = file.startWrite();
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+			codec.writeHeader(out);
+			writeData(fileName, out, codec);
+			out.flush();
+		} catch (IOException | RuntimeException e) {
+			file.failWrite(output);
+			throw e;
+		}
+		file.finishWrite(output);
+	}
+
+	/**
+	 * Read all the .bin files at once. A file that does not exist yet is skipped. A file that can not be read is
+	 * read from its backup file instead, which is the version saved before it.
+	 *
+	 * @throws IOException when a file exists but neither it nor its backup file can be read
+	 */
+	public void readBinFiles() throws IOException {
+		String[] fileNames = {"UserInfo", "SuspendAccount", "FreezeAccount", "UserLoginTime", "TempInfo",
+				"TempInfoExpiry", "TemplateData", "ScheduleData", "CommonInbox", "ChatHistory"};
+		for (String fileName: fileNames){
+			AtomicFile file = new AtomicFile(DIRECTORY + fileName + ".bin");
+			if (file.exists()) {
+				try {
+					readBinFile(fileName, file.openRead());
+				} catch (IOException e) {
+					File backup = file.getBackupFile();
+					if (!backup.exists() || backup.length() == 0) {
+						throw e;
+					}
+					readBinFile(fileName, new FileInputStream(backup));
+					System.out.println(fileName + ".bin cannot be read, the previous version is read instead.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read one .bin file.
+	 *
+	 * @param fileName file name without extension
+	 * @param is input of the file, which is closed afterwards
+	 * @throws IOException when the file can not be read
+	 */
+	private void readBinFile(String fileName, InputStream is) throws IOException {
+		BinaryCodec codec = new BinaryCodec();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+			codec.readHeader(in);
+			readData(fileName, in, codec);
+		}
+	}
+
+	/**
+	 * Return the name of the file that is saved by the action, without extension.
+	 *
+	 * @param action action type without "save", e.g. ScheduleData, Suspend
+	 * @return file name
+	 */
+	private String fileName(String action) {
+		switch (action) {
+			case "Suspend":
+				return "SuspendAccount";
+			case "Freeze":
+				return "FreezeAccount";
+			case "LoginTime":
+				return "UserLoginTime";
+			default:
+				return action;
+		}
+	}
+
+	/**
+	 * Write the data stored in the file with fileName.
+	 *
+	 * @param fileName file name without extension
+	 * @param out output of the file
+	 * @param codec codec of the file
+	 * @throws IOException when the output can not be written
+	 */
+	private void writeData(String fileName, DataOutputStream out, BinaryCodec codec) throws IOException {
+		switch (fileName) {
+			case "UserInfo":
+				out.writeInt(um.getPermanentUsers().size());
+				for (PermanentUser pu: um.getPermanentUsers()){
+					codec.writeUser(out, pu);
+				}
+				break;
+			case "SuspendAccount":
+				writeDates(out, codec, um.getSuspensions());
+				break;
+			case "FreezeAccount":
+				codec.writeStrings(out, um.getFreezes());
+				break;
+			case "UserLoginTime":
+				writeDates(out, codec, um.getLastLoginTime());
+				break;
+			case "TempInfo":
+				HashMap<String, String> savedTempInfo = um.getTempInfo();
+				out.writeInt(savedTempInfo.size());
+				for (Map.Entry<String, String> entry: savedTempInfo.entrySet()){
+					codec.writeString(out, entry.getKey());
+					codec.writeString(out, entry.getValue());
+				}
+				break;
+			case "TempInfoExpiry":
+				writeDates(out, codec, um.getTempExpiry());
+				break;
+			case "TemplateData":
+				out.writeInt(tm.getIdToTemplate().size());
+				for (Template t: tm.getIdToTemplate().values()){
+					codec.writeTemplate(out, t);
+				}
+				break;
+			case "ScheduleData":
+				writeSchedules(out, codec);
+				break;
+			case "CommonInbox":
+				writeMessages(out, codec, mm.getCommonInbox());
+				break;
+			case "ChatHistory":
+				out.writeInt(mm.getChatHistory().size());
+				for (Map.Entry<String, ArrayList<Message>> entry: mm.getChatHistory().entrySet()){
+					codec.writeString(out, entry.getKey());
+					writeMessages(out, codec, entry.getValue());
+				}
+				break;
+			default:
+				throw new IOException("Unknown data file: " + fileName);
+		}
+	}
+
+	/**
+	 * Read the data stored in the file with fileName, and set it to the managers.
+	 *
+	 * @param fileName file name without extension
+	 * @param in input of the file
+	 * @param codec codec of the file
+	 * @throws IOException when the input can not be read
+	 */
+	private void readData(String fileName, DataInputStream in, BinaryCodec codec) throws IOException {
+		switch (fileName) {
+			case "UserInfo":
+				int userCount = in.readInt();
+				ArrayList<PermanentUser> users = new ArrayList<>(userCount);
+				for (int i = 0; i < userCount; i++){
+					users.add(codec.readUser(in));
+				}
+				um.setPermanentUsers(users);
+				break;
+			case "SuspendAccount":
+				um.setSuspensions(readDates(in, codec));
+				break;
+			case "FreezeAccount":
+				um.setFreezes(codec.readStrings(in));
+				break;
+			case "UserLoginTime":
+				um.setLastLoginTime(readDates(in, codec));
+				break;
+			case "TempInfo":
+				int tempCount = in.readInt();
+				HashMap<String, String> tempInfo = new HashMap<>();
+				for (int i = 0; i < tempCount; i++){
+					tempInfo.put(codec.readString(in), codec.readString(in));
+				}
+				um.setTempInfo(tempInfo);
+				break;
+			case "TempInfoExpiry":
+				um.setTempExpiry(readDates(in, codec));
+				break;
+			case "TemplateData":
+				int templateCount = in.readInt();
+				HashMap<String, Template> idToTemplate = new HashMap<>();
+				for (int i = 0; i < templateCount; i++){
+					Template t = codec.readTemplate(in);
+					idToTemplate.put(t.getTemplateId(), t);
+				}
+				tm.setIdToTemplate(idToTemplate);
+				break;
+			case "ScheduleData":
+				readSchedules(in, codec);
+				break;
+			case "CommonInbox":
+				mm.setCommonInbox(readMessages(in, codec));
+				break;
+			case "ChatHistory":
+				int historyCount = in.readInt();
+				HashMap<String, ArrayList<Message>> chatHistory = new HashMap<>();
+				for (int i = 0; i < historyCount; i++){
+					String userId = codec.readString(in);
+					chatHistory.put(userId, readMessages(in, codec));
+				}
+				mm.setChatHistory(chatHistory);
+				break;
+			default:
+				throw new IOException("Unknown data file: " + fileName);
+		}
+	}
+
+	/**
+	 * Write schedulesList and scheduleTempMap.
+	 *
+	 * @param out output of the file
+	 * @param codec codec of the file
+	 * @throws IOException when the output can not be written
+	 */
+	private void writeSchedules(DataOutputStream out, BinaryCodec codec) throws IOException {
+		out.writeInt(sm.getSchedulesList().size());
+		for (Map.Entry<String, List<Schedule>> entry: sm.getSchedulesList().entrySet()){
+			codec.writeString(out, entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (Schedule s: entry.getValue()){
+				codec.writeSchedule(out, s);
+			}
+		}
+		out.writeInt(sm.getScheduleTempMap().size());
+		for (Map.Entry<String, String> entry: sm.getScheduleTempMap().entrySet()){
+			codec.writeString(out, entry.getKey());
+			codec.writeString(out, entry.getValue());
+		}
+	}
+
+	/**
+	 * Read schedulesList and scheduleTempMap, and set them to sm. The schedules shared with each user in a file of
+	 * version 1 are skipped.
+	 *
+	 * @param in input of the file
+	 * @param codec codec of the file
+	 * @throws IOException when the input can not be read
+	 */
+	private void readSchedules(DataInputStream in, BinaryCodec codec) throws IOException {
+		int userCount = in.readInt();
+		HashMap<String, List<Schedule>> schedulesList = new HashMap<>();
+		for (int i = 0; i < userCount; i++){
+			String userId = codec.readString(in);
+			int scheduleCount = in.readInt();
+			List<Schedule> schedules = new ArrayList<>(scheduleCount);
+			for (int j = 0; j < scheduleCount; j++){
+				schedules.add(codec.readSchedule(in));
+			}
+			schedulesList.put(userId, schedules);
+		}
+		int tempCount = in.readInt();
+		HashMap<String, String> scheduleTempMap = new HashMap<>();
+		for (int i = 0; i < tempCount; i++){
+			scheduleTempMap.put(codec.readString(in), codec.readString(in));
+		}
+		if (codec.getVersion() < 2){
+			int friendCount = in.readInt();
+			for (int i = 0; i < friendCount; i++){
+				codec.readString(in);
+				codec.readStrings(in);
+			}
+		}
+		sm.setSchedulesList(schedulesList);
+		sm.setScheduleTempMap(scheduleTempMap);
+	}
+
+	/**
+	 * Write a list of messages.
+	 *
+	 * @param out output of the file
+	 * @param codec codec of the file
+	 * @param messages the messages
+	 * @throws IOException when the output can not be written
+	 */
+	private void writeMessages(DataOutputStream out, BinaryCodec codec, List<Message> messages) throws IOException {
+		out.writeInt(messages.size());
+		for (Message message: messages){
+			codec.writeMessage(out, message);
+		}
+	}
+
+	/**
+	 * Read a list of messages.
+	 *
+	 * @param in input of the file
+	 * @param codec codec of the file
+	 * @return the messages
+	 * @throws IOException when the input can not be read
+	 */
+	private ArrayList<Message> readMessages(DataInputStream in, BinaryCodec codec) throws IOException {
+		int count = in.readInt();
+		ArrayList<Message> messages = new ArrayList<>(count);
+		for (int i = 0; i < count; i++){
+			messages.add(codec.readMessage(in));
+		}
+		return messages;
+	}
+
+	/**
+	 * Write a HashMap from a String to a Date.
+	 *
+	 * @param out output of the file
+	 * @param codec codec of the file
+	 * @param dates the HashMap
+	 * @throws IOException when the output can not be written
+	 */
+	private void writeDates(DataOutputStream out, BinaryCodec codec, HashMap<String, Date> dates) throws IOException {
+		out.writeInt(dates.size());
+		for (Map.Entry<String, Date> entry: dates.entrySet()){
+			codec.writeString(out, entry.getKey());
+			out.writeLong(entry.getValue().getTime());
+		}
+	}
+
+	/**
+	 * Read a HashMap from a String to a Date.
+	 *
+	 * @param in input of the file
+	 * @param codec codec of the file
+	 * @return the HashMap
+	 * @throws IOException when the input can not be read
+	 */
+	private HashMap<String, Date> readDates(DataInputStream in, BinaryCodec codec) throws IOException {
+		int count = in.readInt();
+		HashMap<String, Date> dates = new HashMap<>();
+		for (int i = 0; i < count; i++){
+			dates.put(codec.readString(in), new Date(in.readLong()));
+		}
+		return dates;
+	}
+
+	/**
+	 * Override the method from its interface FileListener.
+	 * Read the welcome message and all .bin files when actionType is readFile, otherwise save the .bin file of
+	 * actionType.
+	 *
+	 * @param actionType readFile or save what type of files
+	 * @throws IOException exceptions occurs when a file can not be read or written
+	 */
+	@Override
+	public void update(String actionType) throws IOException {
+		if (actionType.equals("readFile")){
+			welMsgReader.readWelMsg();
+			readBinFiles();
+		}else{
+			saveBinFile(actionType);
+		}
+	}
+}
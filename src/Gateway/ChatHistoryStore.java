@@ -0,0 +1,169 @@
+package Gateway;
+
+import Entity.Message;
+import UseCase.MessageStore;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A class that implements MessageStore interface. It saves the chat history of each user in its own ser file in
+ * directory, so that only the messages of the users that are used are read, and only the messages of the users that
+ * are changed are written.
+ * The ser file of a user is named by the user id. index.ser in directory maps each user id that has a ser file to
+ * the number of messages in it. Every file is written by AtomicFile.
+ * When there is no index yet but there is a ChatHistory.ser saved by an earlier version, the chat history in it is
+ * split into the files of each user the first time the store is used. ChatHistory.ser is left as it is, and is not
+ * read again once the files of each user and the index are written.
+ *
+ * directory: the directory of the files, ending with "/"
+ * legacyPath: path of ChatHistory.ser
+ * index: map from user id to the number of messages saved for the user, or null before it is read
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class ChatHistoryStore implements MessageStore {
+	private String directory;
+	private String legacyPath;
+	private HashMap<String, Integer> index;
+
+	/**
+	 * Constructor for ChatHistoryStore object. Nothing is read until the store is used.
+	 *
+	 * @param directory the directory of the files, ending with "/"
+	 * @param legacyPath path of ChatHistory.ser
+	 */
+	public ChatHistoryStore(String directory, String legacyPath) {
+		this.directory = directory;
+		this.legacyPath = legacyPath;
+	}
+
+	@Override
+	public Set<String> getUserIds() throws IOException {
+		return Collections.unmodifiableSet(getIndex().keySet());
+	}
+
+	@Override
+	public ArrayList<Message> load(String userId) throws IOException {
+		if (!getIndex().containsKey(userId)) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		ArrayList<Message> messages = (ArrayList<Message>) readObject(new AtomicFile(directory + userId + ".ser"));
+		return messages;
+	}
+
+	@Override
+	public void save(Map<String, ArrayList<Message>> changed) throws IOException {
+		HashMap<String, Integer> index = getIndex();
+		if (changed.isEmpty()) {
+			return;
+		}
+		write(index, changed);
+	}
+
+	/**
+	 * Write the ser files of the given users, then the index with their numbers of messages.
+	 *
+	 * @param index the index to update
+	 * @param changed map from user id to all messages of the user
+	 * @throws IOException when a file can not be written
+	 */
+	private void write(HashMap<String, Integer> index, Map<String, ArrayList<Message>> changed) throws IOException {
+		for (Map.Entry<String, ArrayList<Message>> entry : changed.entrySet()) {
+			writeObject(new AtomicFile(directory + entry.getKey() + ".ser"), entry.getValue());
+			index.put(entry.getKey(), entry.getValue().size());
+		}
+		writeObject(new AtomicFile(directory + "index.ser"), index);
+	}
+
+	/**
+	 * Return the index, reading it the first time. When there is no index, ChatHistory.ser is split into the files
+	 * of each user if it exists, and the index is empty otherwise.
+	 * The index is only kept once it is read, or once ChatHistory.ser is split and the index is written, so when
+	 * that fails, ChatHistory.ser is split again the next time.
+	 *
+	 * @return map from user id to the number of messages saved for the user
+	 * @throws IOException when the index or ChatHistory.ser can not be read, or the split files can not be written
+	 */
+	private HashMap<String, Integer> getIndex() throws IOException {
+		if (index != null) {
+			return index;
+		}
+		new File(directory).mkdirs();
+		AtomicFile indexFile = new AtomicFile(directory + "index.ser");
+		if (indexFile.exists()) {
+			@SuppressWarnings("unchecked")
+			HashMap<String, Integer> read = (HashMap<String, Integer>) readObject(indexFile);
+			index = read;
+			return index;
+		}
+		HashMap<String, Integer> split = new HashMap<>();
+		AtomicFile legacy = new AtomicFile(legacyPath);
+		if (legacy.exists()) {
+			@SuppressWarnings("unchecked")
+			HashMap<String, ArrayList<Message>> chatHistory = (HashMap<String, ArrayList<Message>>) readObject(legacy);
+			if (!chatHistory.isEmpty()) {
+				write(split, chatHistory);
+			}
+		}
+		index = split;
+		return index;
+	}
+
+	/**
+	 * Read the object in a ser file, or in its backup file when the ser file can not be read.
+	 *
+	 * @param file the ser file
+	 * @return the object
+	 * @throws IOException when neither file can be read
+	 */
+	private Object readObject(AtomicFile file) throws IOException {
+		try {
+			return readObject(file.openRead());
+		} catch (IOException e) {
+			if (!file.getBackupFile().exists()) {
+				throw e;
+			}
+			return readObject(new FileInputStream(file.getBackupFile()));
+		}
+	}
+
+	/**
+	 * Read the object in a ser file.
+	 *
+	 * @param is input of the file, which is closed afterwards
+	 * @return the object
+	 * @throws IOException when the input can not be read
+	 */
+	private Object readObject(InputStream is) throws IOException {
+		try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(is))) {
+			return input.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Replace a ser file with the given object.
+	 *
+	 * @param file the ser file
+	 * @param data the object
+	 * @throws IOException when the file can not be written, in which case it is unchanged
+	 */
+	private void writeObject(AtomicFile file, Object data) throws IOException {
+		FileOutputStream output = file.startWrite();
+		try {
+			ObjectOutputStream objectOutput = new ObjectOutputStream(new BufferedOutputStream(output));
+			objectOutput.writeObject(data);
+			objectOutput.flush();
+		} catch (IOException | RuntimeException e) {
+			file.failWrite(output);
+			throw e;
+		}
+		file.finishWrite(output);
+	}
+}
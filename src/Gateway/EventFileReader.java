@@ -0,0 +1,299 @@
+package Gateway;
+
+import Entity.EventTime;
+import Entity.RecurrenceRule;
+import Entity.Schedule;
+import UseCase.EventImport;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A class that reads the events to be imported to a schedule from a file, one line at a time, so that the file is
+ * never read as a whole. Each event is parsed once, and a line that can not be parsed is recorded as an error of
+ * that line instead of stopping the import.
+ *
+ * A file whose name ends with .ics is read as iCalendar: every VEVENT gives one event, named by its SUMMARY, from
+ * its DTSTART to its DTEND, or to DTSTART plus its DURATION. Errors of an event are reported on the line of its
+ * BEGIN:VEVENT. A VEVENT with an RRULE that repeats it daily, weekly or monthly, by COUNT or UNTIL, gives one event
+ * that repeats; any other RRULE is an error.
+ * Any other file is read as CSV: every line is "name,start time,end time", with the times in the same format as
+ * they are typed in for the schedule, e.g. "dd HH:mm" for a monthly schedule. The name is everything before the
+ * last two commas. Empty lines, and a first line that starts with "name," as a header, are skipped.
+ *
+ * DATE_TIME: the local date and time format of iCalendar, e.g. 20200101T093000
+ * DATE: the date format of iCalendar, e.g. 20200101
+ * path: path of the file
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class EventFileReader {
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss");
+	private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+	private String path;
+
+	/**
+	 * Constructor for EventFileReader object.
+	 *
+	 * @param path path of the file
+	 */
+	public EventFileReader(String path) {
+		this.path = path;
+	}
+
+	/**
+	 * Read the events in the file into events.
+	 *
+	 * @param s the schedule the events are imported to, which parses the times of a CSV file
+	 * @param events where the events and the errors of the lines are added
+	 * @throws IOException when the file can not be read
+	 */
+	public void read(Schedule s, EventImport events) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path),
+				StandardCharsets.UTF_8))) {
+			if (path.toLowerCase().endsWith(".ics")){
+				readICalendar(reader, events);
+			}else {
+				readCsv(reader, s, events);
+			}
+		}
+	}
+
+	/**
+	 * Read the events of a CSV file.
+	 *
+	 * @param reader input of the file
+	 * @param s the schedule that parses the times
+	 * @param events where the events and the errors of the lines are added
+	 * @throws IOException when the file can not be read
+	 */
+	private void readCsv(BufferedReader reader, Schedule s, EventImport events) throws IOException {
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().isEmpty() || (lineNumber == 1 && line.toLowerCase().startsWith("name,"))){
+				continue;
+			}
+			int endComma = line.lastIndexOf(',');
+			int startComma = endComma < 0 ? -1 : line.lastIndexOf(',', endComma - 1);
+			if (startComma <= 0){
+				events.addError(lineNumber, "Error: The line is not in the format of name,start time,end time.");
+				continue;
+			}
+			try {
+				events.addEvent(lineNumber, line.substring(0, startComma).trim(), s.parseEventTime(
+						line.substring(startComma + 1, endComma).trim(), line.substring(endComma + 1).trim()));
+			} catch (ParseException e) {
+				events.addError(lineNumber, "Error: The start time or the end time is in incorrect format.");
+			}
+		}
+	}
+
+	/**
+	 * Read the events of an iCalendar file. Lines that are folded, i.e. continued on the next line that starts with
+	 * a space or a tab, are unfolded first. Properties other than SUMMARY, DTSTART, DTEND, DURATION and RRULE are
+	 * ignored.
+	 *
+	 * @param reader input of the file
+	 * @param events where the events and the errors of the lines are added
+	 * @throws IOException when the file can not be read
+	 */
+	private void readICalendar(BufferedReader reader, EventImport events) throws IOException {
+		int lineNumber = 0;
+		int eventLine = 0;
+		String summary = null;
+		String start = null;
+		String end = null;
+		String duration = null;
+		String rule = null;
+		String next = reader.readLine();
+		while (next != null) {
+			lineNumber++;
+			int propertyLine = lineNumber;
+			StringBuilder unfolded = new StringBuilder(next);
+			while ((next = reader.readLine()) != null && !next.isEmpty()
+					&& (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+				lineNumber++;
+				unfolded.append(next, 1, next.length());
+			}
+			String property = unfolded.toString();
+			int colon = property.indexOf(':');
+			if (colon < 0){
+				continue;
+			}
+			String name = property.substring(0, colon).toUpperCase();
+			String value = property.substring(colon + 1);
+			String key = name.contains(";") ? name.substring(0, name.indexOf(';')) : name;
+			if (name.equals("BEGIN") && value.equalsIgnoreCase("VEVENT")){
+				eventLine = propertyLine;
+				summary = "";
+				start = null;
+				end = null;
+				duration = null;
+				rule = null;
+			}else if (eventLine == 0){
+				continue;
+			}else if (key.equals("SUMMARY")){
+				summary = unescape(value);
+			}else if (key.equals("DTSTART")){
+				start = property.substring(0, colon) + ":" + value;
+			}else if (key.equals("DTEND")){
+				end = property.substring(0, colon) + ":" + value;
+			}else if (key.equals("DURATION")){
+				duration = value;
+			}else if (key.equals("RRULE")){
+				rule = value;
+			}else if (name.equals("END") && value.equalsIgnoreCase("VEVENT")){
+				addICalendarEvent(events, eventLine, summary, start, end, duration, rule);
+				eventLine = 0;
+			}
+		}
+		if (eventLine != 0){
+			events.addError(eventLine, "Error: The event is not ended by END:VEVENT.");
+		}
+	}
+
+	/**
+	 * Undo the escaping of a text value of iCalendar.
+	 *
+	 * @param text the escaped text
+	 * @return the text, in which an escaped new line becomes a space
+	 */
+	private String unescape(String text) {
+		StringBuilder unescaped = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\' && i + 1 < text.length()){
+				c = text.charAt(++i);
+				if (c == 'n' || c == 'N'){
+					c = ' ';
+				}
+			}
+			unescaped.append(c);
+		}
+		return unescaped.toString();
+	}
+
+	/**
+	 * Add one event of an iCalendar file to events, or the reason why it can not be added.
+	 *
+	 * @param events where the event or the error is added
+	 * @param line line of BEGIN:VEVENT
+	 * @param summary SUMMARY of the event
+	 * @param start DTSTART property with its parameters, or null
+	 * @param end DTEND property with its parameters, or null
+	 * @param duration value of DURATION, or null
+	 * @param rule value of RRULE, or null
+	 */
+	private void addICalendarEvent(EventImport events, int line, String summary, String start, String end,
+								   String duration, String rule) {
+		if (start == null){
+			events.addError(line, "Error: The event has no DTSTART.");
+			return;
+		}
+		long startTime;
+		long endTime;
+		try {
+			startTime = parseDateTime(start);
+			if (end != null){
+				endTime = parseDateTime(end);
+			}else if (duration != null){
+				endTime = startTime + Duration.parse(duration.startsWith("P") ? duration : "P" + duration).toMillis();
+			}else {
+				endTime = startTime;
+			}
+			if (rule == null){
+				events.addEvent(line, summary, new EventTime(startTime, endTime));
+				return;
+			}
+		} catch (DateTimeException | ArithmeticException e) {
+			events.addError(line, "Error: The start time or the end time is in incorrect format.");
+			return;
+		}
+		try {
+			events.addRecurringEvent(line, summary, parseRule(rule, startTime, endTime));
+		} catch (IllegalArgumentException | DateTimeException e) {
+			events.addError(line, "Error: The RRULE is not supported, an event can only repeat daily, weekly or " +
+					"monthly.");
+		}
+	}
+
+	/**
+	 * Parse the value of an RRULE, e.g. FREQ=WEEKLY;COUNT=10 or FREQ=DAILY;UNTIL=20200131T235959Z.
+	 * An UNTIL that is a date includes the whole day.
+	 *
+	 * @param rule value of RRULE
+	 * @param start start time of the first occurrence in milliseconds
+	 * @param end end time of the first occurrence in milliseconds
+	 * @return the rule of the event
+	 * @throws IllegalArgumentException when the RRULE has a part other than FREQ, COUNT, UNTIL, INTERVAL=1 and
+	 * WKST, or a value in incorrect format
+	 * @throws DateTimeException when UNTIL is in incorrect format
+	 */
+	private RecurrenceRule parseRule(String rule, long start, long end) {
+		String frequency = null;
+		int count = 0;
+		long until = Long.MAX_VALUE;
+		for (String part : rule.split(";")) {
+			int equals = part.indexOf('=');
+			String name = equals < 0 ? part.toUpperCase() : part.substring(0, equals).toUpperCase();
+			String value = part.substring(equals + 1).trim();
+			if (name.equals("FREQ")){
+				frequency = value.toLowerCase();
+			}else if (name.equals("COUNT")){
+				count = Integer.parseInt(value);
+			}else if (name.equals("UNTIL")){
+				until = parseDateTime("UNTIL:" + value);
+				if (value.length() == 8){
+					until += Duration.ofDays(1).toMillis() - 1;
+				}
+			}else if (!(name.equals("INTERVAL") && value.equals("1")) && !name.equals("WKST")){
+				throw new IllegalArgumentException("Unsupported part of RRULE: " + part);
+			}
+		}
+		if (frequency == null){
+			throw new IllegalArgumentException("RRULE without FREQ");
+		}
+		return new RecurrenceRule(new EventTime(start, end), frequency, count, until);
+	}
+
+	/**
+	 * Parse a DTSTART or DTEND property. A time ending with Z is in UTC, a time with a TZID parameter is in that
+	 * time zone, and any other time or date is in the time zone of this computer, like the times typed in by users.
+	 *
+	 * @param property the property with its parameters, e.g. DTSTART;TZID=America/Toronto:20200101T093000
+	 * @return time in milliseconds
+	 * @throws DateTimeException when the time or the time zone is in incorrect format
+	 */
+	private long parseDateTime(String property) {
+		int colon = property.indexOf(':');
+		String parameters = property.substring(0, colon).toUpperCase();
+		String value = property.substring(colon + 1).trim();
+		ZoneId zone = ZoneId.systemDefault();
+		int tzid = parameters.indexOf(";TZID=");
+		if (value.endsWith("Z")){
+			zone = ZoneOffset.UTC;
+			value = value.substring(0, value.length() - 1);
+		}else if (tzid >= 0){
+			String zoneId = property.substring(tzid + 6, colon);
+			if (zoneId.contains(";")){
+				zoneId = zoneId.substring(0, zoneId.indexOf(';'));
+			}
+			zone = ZoneId.of(zoneId.replace("\"", ""));
+		}
+		try {
+			if (value.length() == 8){
+				return LocalDate.parse(value, DATE).atStartOfDay(zone).toInstant().toEpochMilli();
+			}
+			return LocalDateTime.parse(value, DATE_TIME).atZone(zone).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			throw new DateTimeException(e.getMessage(), e);
+		}
+	}
+}
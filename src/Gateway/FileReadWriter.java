@@ -22,14 +22,14 @@ public class FileReadWriter {
 	 * Constructor for FileReadWriter object. It initialize events attribute by
 	 * passing in the operations ArrayList, which contains:
 	 * readFile(read all files),
-	 * saveScheduleData(save the ser files named 'ScheduleData', 'ScheduleData2', 'ScheduleData3'),
+	 * saveScheduleData(save the ser files named 'ScheduleData', 'ScheduleData2'),
 	 * saveTemplateData(save the ser file named 'TemplateData'),
 	 * saveWelMsg(save the txt file named 'WelcomeMessage'),
 	 * saveUserInfo(save the ser file named 'UserInfo'),
 	 * saveSuspend(save the ser file named 'SuspendAccount'),
 	 * saveFreeze(save the ser file named 'FreezeAccount'),
 	 * saveLoginTime(save the ser file named 'UserLoginTime'),
-	 * saveTempInfo(save the ser file named 'TempInfo'),
+	 * saveTempInfo(save the ser files named 'TempInfo', 'TempInfoExpiry'),
 	 * saveTempPwd(save the txt file named by user's email who chose 'Forgot Password')
 	 *
 	 * @param operations arraylist of action operations
@@ -43,7 +43,7 @@ public class FileReadWriter {
 	 *
 	 * @throws IOException exception occur when we call notify method
 	 */
-	public void readFile() throws IOException {
+	public synchronized void readFile() throws IOException {
 		events.notify("readFile");
 	}
 
@@ -51,11 +51,12 @@ public class FileReadWriter {
 	 * Notify observers to save the file according to the passed in action type
 	 * action types are: saveScheduleData, saveTemplateData, saveWelMsg, saveUserInfo, saveSuspend,
 	 * saveFreeze, saveLoginTime, saveTempInfo, saveTempPwd
+	 * Files are saved one at a time, also when the expiry thread of UserManager saves them.
 	 *
 	 * @param actionType save which file
 	 * @throws IOException exception occur when we call notify method
 	 */
-	public void saveFile(String actionType) throws IOException {
+	public synchronized void saveFile(String actionType) throws IOException {
 		events.notify(actionType);
 	}
 }
@@ -0,0 +1,187 @@
+package Gateway;
+
+import Entity.EventTime;
+import Entity.RecurrenceRule;
+import Entity.Schedule;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class that exports schedules to an iCalendar (.ics) file, which can be read by EventFileReader and by other
+ * calendar apps.
+ *
+ * Every time of an event becomes one VEVENT, whose SUMMARY is the event name and whose CATEGORIES is the schedule
+ * name. An event that repeats becomes one VEVENT of its first occurrence with an RRULE, so the occurrences are never
+ * all computed. Times are written in UTC, except the times of an event that repeats, which are written in the local
+ * time of this computer without a time zone, since its occurrences are a day, a week or a month apart in local time
+ * and so stay at the same local time across daylight saving changes. Each VEVENT is written to the file as soon as
+ * it is made, through a buffered writer, so the memory used does not grow with the number of schedules or events.
+ * The file is written by AtomicFile, so a failed export leaves no half written file behind.
+ *
+ * UTC_TIME: the UTC date and time format of iCalendar, e.g. 20200101T093000Z
+ * LOCAL_TIME: the local date and time format of iCalendar, in the time zone of this computer, e.g. 20200101T093000
+ * MAX_LINE_LENGTH: the longest line allowed by iCalendar, in bytes, after which the line is folded
+ * path: path of the file
+ * stamp: the time of the export, written as DTSTAMP of every VEVENT
+ * count: number of VEVENTs written
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class ICalendarWriter {
+	private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss'Z'")
+			.withZone(ZoneOffset.UTC);
+	private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss");
+	private static final int MAX_LINE_LENGTH = 75;
+	private String path;
+	private String stamp;
+	private int count;
+
+	/**
+	 * Constructor for ICalendarWriter object.
+	 *
+	 * @param path path of the file
+	 */
+	public ICalendarWriter(String path) {
+		this.path = path;
+	}
+
+	/**
+	 * Write the given schedules to the file, replacing the file if it exists.
+	 *
+	 * @param schedules the schedules, which are only iterated once
+	 * @return number of events written, where an event that repeats is counted once
+	 * @throws IOException when the file can not be written, in which case it is unchanged
+	 */
+	public int write(Iterable<Schedule> schedules) throws IOException {
+		AtomicFile file = new AtomicFile(path);
+		FileOutputStream output = file.startWrite();
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			stamp = UTC_TIME.format(Instant.now());
+			count = 0;
+			writeLine(writer, "BEGIN:VCALENDAR");
+			writeLine(writer, "VERSION:2.0");
+			writeLine(writer, "PRODID:-//Calendar and Scheduling app//EN");
+			writeLine(writer, "CALSCALE:GREGORIAN");
+			for (Schedule s : schedules) {
+				writeSchedule(writer, s);
+			}
+			writeLine(writer, "END:VCALENDAR");
+			writer.flush();
+		} catch (IOException | RuntimeException e) {
+			file.failWrite(output);
+			throw e;
+		}
+		file.finishWrite(output);
+		return count;
+	}
+
+	/**
+	 * Write a VEVENT for every time of every event of a schedule, and for every event that repeats.
+	 *
+	 * @param writer output of the file
+	 * @param s the schedule
+	 * @throws IOException when the file can not be written
+	 */
+	private void writeSchedule(Writer writer, Schedule s) throws IOException {
+		for (Map.Entry<String, List<EventTime>> event : s.getEventTimes().entrySet()) {
+			for (EventTime time : event.getValue()) {
+				writeEvent(writer, s, event.getKey(), time, null);
+			}
+		}
+		for (Map.Entry<String, RecurrenceRule> event : s.getRecurrences().entrySet()) {
+			RecurrenceRule rule = event.getValue();
+			String rrule = "FREQ=" + rule.getFrequency().toUpperCase();
+			if (rule.getCount() > 0){
+				rrule += ";COUNT=" + rule.getCount();
+			}
+			if (rule.getUntil() != Long.MAX_VALUE){
+				rrule += ";UNTIL=" + formatTime(rule.getUntil(), true);
+			}
+			writeEvent(writer, s, event.getKey(), rule.getFirst(), rrule);
+		}
+	}
+
+	/**
+	 * Write one VEVENT.
+	 *
+	 * @param writer output of the file
+	 * @param s the schedule of the event
+	 * @param eventName event name
+	 * @param time start and end time, or of the first occurrence if the event repeats
+	 * @param rrule value of RRULE, or null if the event does not repeat
+	 * @throws IOException when the file can not be written
+	 */
+	private void writeEvent(Writer writer, Schedule s, String eventName, EventTime time, String rrule)
+			throws IOException {
+		writeLine(writer, "BEGIN:VEVENT");
+		writeLine(writer, "UID:" + s.getScheduleID() + "-" + time.getStart() + "-" + time.getEnd() + "-"
+				+ Integer.toHexString(eventName.hashCode()) + (rrule == null ? "" : "-R"));
+		writeLine(writer, "DTSTAMP:" + stamp);
+		writeLine(writer, "DTSTART:" + formatTime(time.getStart(), rrule != null));
+		writeLine(writer, "DTEND:" + formatTime(time.getEnd(), rrule != null));
+		if (rrule != null){
+			writeLine(writer, "RRULE:" + rrule);
+		}
+		writeLine(writer, "SUMMARY:" + escape(eventName));
+		writeLine(writer, "CATEGORIES:" + escape(s.getScheduleName()));
+		writeLine(writer, "END:VEVENT");
+		count++;
+	}
+
+	/**
+	 * Format a time of iCalendar.
+	 *
+	 * @param time time in milliseconds
+	 * @param local true for the local time of this computer without a time zone, false for UTC
+	 * @return the formatted time
+	 */
+	private String formatTime(long time, boolean local) {
+		Instant instant = Instant.ofEpochMilli(time);
+		return local ? LOCAL_TIME.format(instant.atZone(ZoneId.systemDefault())) : UTC_TIME.format(instant);
+	}
+
+	/**
+	 * Escape a text value of iCalendar.
+	 *
+	 * @param text the text
+	 * @return the text with backslash, comma, semicolon and new line escaped
+	 */
+	private String escape(String text) {
+		return text.replace("\\", "\\\\").replace(",", "\\,").replace(";", "\\;")
+				.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+	}
+
+	/**
+	 * Write a line ended by CRLF. A line longer than MAX_LINE_LENGTH bytes in UTF-8 is folded: it is continued on
+	 * the next line after a space, and a character is never split.
+	 *
+	 * @param writer output of the file
+	 * @param line the line
+	 * @throws IOException when the file can not be written
+	 */
+	private void writeLine(Writer writer, String line) throws IOException {
+		int bytes = 0;
+		int i = 0;
+		while (i < line.length()) {
+			int codePoint = line.codePointAt(i);
+			int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+			if (bytes + length > MAX_LINE_LENGTH){
+				writer.write("\r\n ");
+				bytes = 1;
+			}
+			writer.write(line, i, Character.charCount(codePoint));
+			bytes += length;
+			i += Character.charCount(codePoint);
+		}
+		writer.write("\r\n");
+	}
+}
@@ -13,11 +13,13 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * A observer class. It implements FileListener interface.
- * It has six attributes.
+ * It has eight attributes.
  *
  * filePaths: an arraylist of all the file paths
  * um: UserManager object
@@ -25,6 +27,8 @@ import java.util.List;
  * sm: ScheduleManager object
  * ls: LoginSystem object
  * mm: MessageManager object
+ * parallel: whether the ser files are read at the same time on a thread pool
+ * loadTimes: how long reading each ser file took last time, in milliseconds, in the order of filePaths
  *
  * @author Qing Lyu
  * @author Zhen Cheng
@@ -36,6 +40,20 @@ public class ReadFileListener implements FileListener{
 	private ScheduleManager sm;
 	private LoginSystem ls;
 	private MessageManager mm;
+	private boolean parallel;
+	private LinkedHashMap<String, Long> loadTimes;
+
+	/**
+	 * Constructor for ReadFileListener object that reads the ser files one after another.
+	 *
+	 * @param tm template manager
+	 * @param sm schedule manager
+	 * @param mm message manager
+	 * @param ls login system
+	 */
+	public ReadFileListener(TemplateManager tm, ScheduleManager sm, MessageManager mm, LoginSystem ls){
+		this(tm, sm, mm, ls, false);
+	}
 
 	/**
 	 * Constructor for ReadFileListener object. It initialize all the variables.
@@ -45,8 +63,12 @@ public class ReadFileListener implements FileListener{
 	 * @param sm schedule manager
 	 * @param mm message manager
 	 * @param ls login system
+	 * @param parallel whether the ser files are read at the same time on a thread pool
 	 */
-	public ReadFileListener(TemplateManager tm, ScheduleManager sm, MessageManager mm, LoginSystem ls){
+	public ReadFileListener(TemplateManager tm, ScheduleManager sm, MessageManager mm, LoginSystem ls,
+							boolean parallel){
+		this.parallel = parallel;
+		this.loadTimes = new LinkedHashMap<>();
 		this.tm = tm;
 		this.sm = sm;
 		this.ls = ls;
@@ -57,7 +79,8 @@ public class ReadFileListener implements FileListener{
 	}
 
 	/**
-	 * Add all the file path to the attribute filePaths
+	 * Add all the file path to the attribute filePaths.
+	 * ChatHistory.ser is not read when mm has a MessageStore, which reads each user's messages when they are used.
 	 */
 	public void addFilePath(){
 		filePaths.add("phase2/UserInfo.ser");
@@ -65,12 +88,14 @@ public class ReadFileListener implements FileListener{
 		filePaths.add("phase2/FreezeAccount.ser");
 		filePaths.add("phase2/UserLoginTime.ser");
 		filePaths.add("phase2/TempInfo.ser");
+		filePaths.add("phase2/TempInfoExpiry.ser");
 		filePaths.add("phase2/TemplateData.ser");
 		filePaths.add("phase2/ScheduleData.ser");
 		filePaths.add("phase2/ScheduleData2.ser");
-		filePaths.add("phase2/ScheduleData3.ser");
 		filePaths.add("phase2/CommonInbox.ser");
-		filePaths.add("phase2/ChatHistory.ser");
+		if (!mm.hasMessageStore()) {
+			filePaths.add("phase2/ChatHistory.ser");
+		}
 	}
 
 	/**
@@ -97,55 +122,179 @@ public class ReadFileListener implements FileListener{
 	}
 
 	/**
-	 * Read all the ser files at once
+	 * Getter of loadTimes.
+	 *
+	 * @return how long reading each ser file took last time, in milliseconds
+	 */
+	public LinkedHashMap<String, Long> getLoadTimes() {
+		return loadTimes;
+	}
+
+	/**
+	 * Read all the ser files at once.
+	 * A file that can not be read, e.g. because it was damaged, is read from its backup file instead, which is the
+	 * version saved before it by SaveFileListener.
+	 * When parallel is true, the files are read at the same time, and the objects in them are set to the managers
+	 * only after every file is read. Then how long each file took is printed.
 	 *
 	 * @throws IOException exception occurs when we call createNewFile method
 	 */
 	public void readSerFile() throws IOException {
+		loadTimes.clear();
+		if (parallel) {
+			readSerFilesInParallel();
+			return;
+		}
 		for (String filePath: filePaths){
-			File file = new File(filePath);
-			if (file.exists() && file.length() != 0) {
-				try {
-					InputStream is = new FileInputStream(filePath);
-					InputStream buffer = new BufferedInputStream(is);
-					ObjectInput input = new ObjectInputStream(buffer);
-
-					if (filePath.contains("UserInfo")){
-						um.setPermanentUsers((ArrayList<PermanentUser>) input.readObject());
-					}else if (filePath.contains("SuspendAccount")){
-						um.setSuspensions((HashMap<String, Date>) input.readObject());
-					}else if (filePath.contains("FreezeAccount")){
-						um.setFreezes((ArrayList<String>) input.readObject());
-					}else if (filePath.contains("UserLoginTime")){
-						um.setLastLoginTime((HashMap<String, Date>) input.readObject());
-					}else if (filePath.contains("TempInfo")){
-						um.setTempInfo((HashMap<String, String>) input.readObject());
-					}else if (filePath.contains("TemplateData")){
-						tm.setIdToTemplate((HashMap<String, Template>) input.readObject());
-					}else if (filePath.contains("CommonInbox")){
-						mm.setCommonInbox((ArrayList<Message>) input.readObject());
-					}else if (filePath.contains("ChatHistory")){
-						mm.setChatHistory((HashMap<String, ArrayList<Message>>) input.readObject());
-					}
-
-					if (filePath.contains("ScheduleData") && !filePath.contains("ScheduleData2") &&
-							!filePath.contains("ScheduleData3")){
-						sm.setSchedulesList((HashMap<String, List<Schedule>>) input.readObject());
-					}else if (filePath.contains("ScheduleData2")){
-						sm.setScheduleTempMap((HashMap<String, String>) input.readObject());
-					}else if (filePath.contains("ScheduleData3")){
-						sm.setSchedulesFriend((HashMap<String, List<Schedule>>) input.readObject());
-					}
-
-					input.close();
-					buffer.close();
-					is.close();
-				} catch (IOException | ClassNotFoundException ex) {
-					System.out.println("We cannot read from input." + ex);
+			long start = System.nanoTime();
+			Object data = loadSerFile(filePath);
+			loadTimes.put(filePath, (System.nanoTime() - start) / 1000000);
+			if (data != null) {
+				setSerObject(filePath, data);
+			}
+		}
+	}
+
+	/**
+	 * Read every ser file on a thread pool, then set the objects in them in the order of filePaths, and print how
+	 * long each file took.
+	 *
+	 * @throws IOException exception occurs when we call createNewFile method
+	 */
+	private void readSerFilesInParallel() throws IOException {
+		long start = System.nanoTime();
+		int threads = Math.min(filePaths.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(threads, 1));
+		ConcurrentHashMap<String, Long> times = new ConcurrentHashMap<>();
+		LinkedHashMap<String, Future<Object>> loads = new LinkedHashMap<>();
+		try {
+			for (String filePath: filePaths){
+				loads.put(filePath, pool.submit(() -> {
+					long fileStart = System.nanoTime();
+					Object data = loadSerFile(filePath);
+					times.put(filePath, (System.nanoTime() - fileStart) / 1000000);
+					return data;
+				}));
+			}
+			LinkedHashMap<String, Object> loaded = new LinkedHashMap<>();
+			for (String filePath: filePaths){
+				loaded.put(filePath, loads.get(filePath).get());
+			}
+			for (String filePath: filePaths){
+				loadTimes.put(filePath, times.get(filePath));
+				if (loaded.get(filePath) != null) {
+					setSerObject(filePath, loaded.get(filePath));
 				}
-			} else {
-				file.createNewFile();
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Reading the ser files is interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		for (String filePath: filePaths){
+			System.out.println("Read " + filePath + " in " + loadTimes.get(filePath) + " ms");
+		}
+		System.out.println("Read " + filePaths.size() + " files in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * Read the object in a ser file, or in its backup file when it can not be read.
+	 * An empty file is created when neither exists.
+	 *
+	 * @param filePath path of the ser file
+	 * @return the object, or null when there is nothing to read
+	 * @throws IOException exception occurs when we call createNewFile method
+	 */
+	private Object loadSerFile(String filePath) throws IOException {
+		AtomicFile file = new AtomicFile(filePath);
+		if (!file.exists()) {
+			file.getFile().createNewFile();
+			return null;
+		}
+		try {
+			return readSerObject(file.openRead());
+		} catch (IOException | ClassNotFoundException ex) {
+			return readBackupFile(filePath, file, ex);
+		}
+	}
+
+	/**
+	 * Read the backup file of a ser file that can not be read.
+	 *
+	 * @param filePath path of the ser file
+	 * @param file the ser file
+	 * @param cause why the ser file can not be read
+	 * @return the object in the backup file, or null when it can not be read either
+	 */
+	private Object readBackupFile(String filePath, AtomicFile file, Exception cause) {
+		File backup = file.getBackupFile();
+		if (!backup.exists() || backup.length() == 0) {
+			System.out.println("We cannot read from input." + cause);
+			return null;
+		}
+		try {
+			Object data = readSerObject(new FileInputStream(backup));
+			System.out.println(filePath + " cannot be read, the previous version is read instead.");
+			return data;
+		} catch (IOException | ClassNotFoundException ex) {
+			System.out.println("We cannot read from input." + cause);
+			return null;
+		}
+	}
+
+	/**
+	 * Read the object in one ser file.
+	 *
+	 * @param is input of the file, which is closed afterwards
+	 * @return the object
+	 * @throws IOException when the input can not be read
+	 * @throws ClassNotFoundException when the class of the object in the file is not found
+	 */
+	private Object readSerObject(InputStream is) throws IOException, ClassNotFoundException {
+		try (ObjectInput input = new ObjectInputStream(new BufferedInputStream(is))) {
+			return input.readObject();
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Set the object read from a ser file to the manager it belongs to.
+	 *
+	 * @param filePath path of the ser file
+	 * @param data the object in the file
+	 */
+	private void setSerObject(String filePath, Object data) {
+		if (filePath.contains("UserInfo")){
+			um.setPermanentUsers((ArrayList<PermanentUser>) data);
+		}else if (filePath.contains("SuspendAccount")){
+			um.setSuspensions((HashMap<String, Date>) data);
+		}else if (filePath.contains("FreezeAccount")){
+			um.setFreezes((ArrayList<String>) data);
+		}else if (filePath.contains("UserLoginTime")){
+			um.setLastLoginTime((HashMap<String, Date>) data);
+		}else if (filePath.contains("TempInfoExpiry")){
+			um.setTempExpiry((HashMap<String, Date>) data);
+		}else if (filePath.contains("TempInfo")){
+			um.setTempInfo((HashMap<String, String>) data);
+		}else if (filePath.contains("TemplateData")){
+			tm.setIdToTemplate((HashMap<String, Template>) data);
+		}else if (filePath.contains("CommonInbox")){
+			mm.setCommonInbox((ArrayList<Message>) data);
+		}else if (filePath.contains("ChatHistory")){
+			mm.setChatHistory((HashMap<String, ArrayList<Message>>) data);
+		}
+
+		if (filePath.contains("ScheduleData") && !filePath.contains("ScheduleData2")){
+			sm.setSchedulesList((HashMap<String, List<Schedule>>) data);
+		}else if (filePath.contains("ScheduleData2")){
+			sm.setScheduleTempMap((HashMap<String, String>) data);
 		}
 	}
 
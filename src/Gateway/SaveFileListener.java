@@ -62,7 +62,8 @@ public class SaveFileListener implements FileListener{
 	}
 
 	/**
-	 * Add all the file path to the attribute filePaths
+	 * Add all the file path to the attribute filePaths.
+	 * ChatHistory.ser is not saved when mm has a MessageStore, which saves each user's messages that are changed.
 	 */
 	private void addFilePath() {
 		filePaths.add("phase2/UserInfo.ser");
@@ -70,12 +71,14 @@ public class SaveFileListener implements FileListener{
 		filePaths.add("phase2/FreezeAccount.ser");
 		filePaths.add("phase2/UserLoginTime.ser");
 		filePaths.add("phase2/TempInfo.ser");
+		filePaths.add("phase2/TempInfoExpiry.ser");
 		filePaths.add("phase2/TemplateData.ser");
 		filePaths.add("phase2/ScheduleData.ser");
 		filePaths.add("phase2/ScheduleData2.ser");
-		filePaths.add("phase2/ScheduleData3.ser");
 		filePaths.add("phase2/CommonInbox.ser");
-		filePaths.add("phase2/ChatHistory.ser");
+		if (!mm.hasMessageStore()) {
+			filePaths.add("phase2/ChatHistory.ser");
+		}
 	}
 
 	/**
@@ -102,58 +105,69 @@ public class SaveFileListener implements FileListener{
 		bw.write("User ID: " + info.get(0) + "\n");
 		bw.write("Email: " + info.get(1) + "\n");
 		bw.write("Temporary Password: " + info.get(2) + "\n");
+		bw.write("It expires at: " + info.get(3) + "\n");
 		bw.close();
 	}
 
 	/**
-	 * Save the ser file based on actionType
+	 * Save the ser file based on actionType.
+	 * The file is replaced as a whole by AtomicFile, and the previous version is kept as its backup file. When the
+	 * file can not be written, the saved file is unchanged and the IOException is thrown.
 	 *
 	 * @param actionType type of files need to save
+	 * @throws IOException exception occurs when a file can not be written
 	 */
-	public void saveSerFile(String actionType){
+	public void saveSerFile(String actionType) throws IOException {
 		for (String filePath: filePaths){
 			if (filePath.contains(actionType.substring(4))){
+				AtomicFile file = new AtomicFile(filePath);
+				FileOutputStream output = file.startWrite();
 				try{
-					OutputStream file = new FileOutputStream(filePath);
-					OutputStream buffer = new BufferedOutputStream(file);
-					ObjectOutput output = new ObjectOutputStream(buffer);
-
-					if (filePath.contains("UserInfo")){
-						output.writeObject(um.getPermanentUsers());
-					}else if (filePath.contains("SuspendAccount")){
-						output.writeObject(um.getSuspensions());
-					}else if (filePath.contains("FreezeAccount")){
-						output.writeObject(um.getFreezes());
-					}else if (filePath.contains("UserLoginTime")){
-						output.writeObject(um.getLastLoginTime());
-					}else if (filePath.contains("TempInfo")){
-						output.writeObject(um.getTempInfo());
-					}else if (filePath.contains("TemplateData")){
-						output.writeObject(tm.getIdToTemplate());
-					}else if (filePath.contains("CommonInbox")){
-						output.writeObject(mm.getCommonInbox());
-					}else if (filePath.contains("ChatHistory")){
-						output.writeObject(mm.getChatHistory());
-					}
-
-					if (filePath.contains("ScheduleData") && !filePath.contains("ScheduleData2") &&
-							!filePath.contains("ScheduleData3")){
-						output.writeObject(sm.getSchedulesList());
-					}else if (filePath.contains("ScheduleData2")){
-						output.writeObject(sm.getScheduleTempMap());
-					}else if (filePath.contains("ScheduleData3")){
-						output.writeObject(sm.getSchedulesFriend());
-					}
-					output.close();
-					buffer.close();
-					file.close();
-				} catch (IOException e) {
-					e.printStackTrace();
+					ObjectOutputStream objectOutput = new ObjectOutputStream(new BufferedOutputStream(output));
+					objectOutput.writeObject(getSerObject(filePath));
+					objectOutput.flush();
+				} catch (IOException | RuntimeException e) {
+					file.failWrite(output);
+					throw e;
 				}
+				file.finishWrite(output);
 			}
 		}
 	}
 
+	/**
+	 * Return the object that is saved in the ser file.
+	 *
+	 * @param filePath path of the ser file
+	 * @return the object
+	 * @throws IOException when the chat history of a user can not be read
+	 */
+	private Object getSerObject(String filePath) throws IOException {
+		if (filePath.contains("UserInfo")){
+			return um.getPermanentUsers();
+		}else if (filePath.contains("SuspendAccount")){
+			return um.getSuspensions();
+		}else if (filePath.contains("FreezeAccount")){
+			return um.getFreezes();
+		}else if (filePath.contains("UserLoginTime")){
+			return um.getLastLoginTime();
+		}else if (filePath.contains("TempInfoExpiry")){
+			return um.getTempExpiry();
+		}else if (filePath.contains("TempInfo")){
+			return um.getTempInfo();
+		}else if (filePath.contains("TemplateData")){
+			return tm.getIdToTemplate();
+		}else if (filePath.contains("CommonInbox")){
+			return mm.getCommonInbox();
+		}else if (filePath.contains("ChatHistory")){
+			return mm.getChatHistory();
+		}else if (filePath.contains("ScheduleData2")){
+			return sm.getScheduleTempMap();
+		}else{
+			return sm.getSchedulesList();
+		}
+	}
+
 	/**
 	 * Override the method from its interface FileListener.
 	 * Update all the changes. Save files according to the action type
@@ -167,6 +181,8 @@ public class SaveFileListener implements FileListener{
 			saveWelMsg();
 		}else if (actionType.equals("saveTempPwd")){
 			saveTempPwd();
+		}else if (actionType.equals("saveChatHistory") && mm.hasMessageStore()){
+			mm.saveChatHistory();
 		}else{
 			saveSerFile(actionType);
 		}
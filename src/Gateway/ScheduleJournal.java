@@ -0,0 +1,428 @@
+package Gateway;
+
+import Entity.EventTime;
+import Entity.RecurrenceRule;
+import Entity.Schedule;
+import UseCase.SameStatusException;
+import UseCase.ScheduleListener;
+import UseCase.ScheduleManager;
+import UseCase.ScheduleNotFoundException;
+
+import java.io.*;
+
+/**
+ * A observer class. It implements FileListener and ScheduleListener interface.
+ * It keeps a journal of the changes to schedules, so that saving the schedules only appends the changes made since
+ * the last save, instead of writing every schedule again.
+ *
+ * Every change ScheduleManager makes is kept in pending as a record. On saveScheduleData, the pending records are
+ * appended to the journal file and forced to disk. Once the journal is larger than compactSize, the snapshot is
+ * written by snapshotSaver like before, and a new journal is started. The old journal is kept as the backup file of
+ * the journal until the next snapshot, so that it can be applied to the backup file of the snapshot when the new
+ * snapshot can not be read.
+ * On readFile, which is done after the snapshot is read, the records in the backup file of the journal and then in
+ * the journal are applied to ScheduleManager again. A record that was not completely written, e.g. the program
+ * stopped while appending it, is dropped together with everything after it. Applying a record again gives the same
+ * schedules, so records that are already in the snapshot that was read can be applied again.
+ * A journal that was started by an older version of BinaryCodec is emptied by writing the snapshot on the first
+ * save, so that the records appended to it are always read in the version they are written in.
+ *
+ * JOURNAL_PATH: path of the journal file
+ * COMPACT_SIZE: default compactSize, in bytes
+ * sm: ScheduleManager object
+ * snapshotSaver: listener that saves the snapshot of all schedules on saveScheduleData
+ * compactSize: size of the journal file, in bytes, at which the snapshot is written
+ * codec: writes and reads records
+ * pending: records of changes that are not saved yet
+ * recordBuffer: the fields of the record being written
+ * replaying: true while the journal is being read, when changes do not need to be recorded
+ * current: true iff the journal file was started by this version of BinaryCodec
+ *
+ * @author Qing Lyu
+ * @author Zhen Cheng
+ */
+public class ScheduleJournal implements FileListener, ScheduleListener {
+	public static final String JOURNAL_PATH = "phase2/ScheduleJournal.log";
+	public static final long COMPACT_SIZE = 1 << 20;
+	private static final int HEADER_SIZE = 6;
+	private static final byte CREATE = 1;
+	private static final byte DELETE = 2;
+	private static final byte ADD_EVENT = 3;
+	private static final byte DELETE_EVENT = 4;
+	private static final byte STATUS = 5;
+	private static final byte SHARE = 6;
+	private static final byte RULE_ADD = 7;
+	private static final byte RULE_REMOVE = 8;
+	private ScheduleManager sm;
+	private FileListener snapshotSaver;
+	private long compactSize;
+	private BinaryCodec codec;
+	private ByteArrayOutputStream pending;
+	private ByteArrayOutputStream recordBuffer;
+	private boolean replaying;
+	private boolean current;
+
+	/**
+	 * Constructor for ScheduleJournal object. It initialize all the variables and listens to the changes of sm.
+	 *
+	 * @param sm schedule manager
+	 * @param snapshotSaver listener that saves the snapshot of all schedules
+	 * @param compactSize size of the journal file, in bytes, at which the snapshot is written
+	 */
+	public ScheduleJournal(ScheduleManager sm, FileListener snapshotSaver, long compactSize){
+		this.sm = sm;
+		this.snapshotSaver = snapshotSaver;
+		this.compactSize = compactSize;
+		this.codec = new BinaryCodec();
+		this.pending = new ByteArrayOutputStream();
+		sm.addListener(this);
+	}
+
+	/**
+	 * Override the method from its interface FileListener.
+	 * Replay the journal on readFile, and append the pending records on saveScheduleData.
+	 *
+	 * @param actionType readFile or saveScheduleData
+	 * @throws IOException exception occurs when the journal or the snapshot can not be read or written
+	 */
+	@Override
+	public void update(String actionType) throws IOException {
+		if (actionType.equals("readFile")){
+			replay();
+		}else if (actionType.equals("saveScheduleData")){
+			save();
+		}
+	}
+
+	/**
+	 * Append the pending records to the journal, and write the snapshot if the journal becomes too large.
+	 * The snapshot is also written if there is no journal yet, so that the journal always starts from a snapshot,
+	 * or if the journal was started by an older version.
+	 * When appending fails, the journal is cut back to its length before, and the records stay pending, so that
+	 * the next save appends them again after the last complete record.
+	 *
+	 * @throws IOException exception occurs when the journal or the snapshot can not be written
+	 */
+	public void save() throws IOException {
+		File file = new File(JOURNAL_PATH);
+		if (!file.exists() || !current){
+			compact();
+			return;
+		}
+		if (pending.size() == 0){
+			return;
+		}
+		long length = file.length();
+		FileOutputStream output = new FileOutputStream(file, true);
+		try {
+			pending.writeTo(output);
+			output.getFD().sync();
+		} catch (IOException e) {
+			try {
+				output.getChannel().truncate(length);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		} finally {
+			output.close();
+		}
+		pending.reset();
+		if (file.length() >= compactSize){
+			compact();
+		}
+	}
+
+	/**
+	 * Write the snapshot of all schedules, then start a new journal with the pending records. The new journal is
+	 * written by AtomicFile, so the old journal is kept as its backup file, which is the previous generation like
+	 * the backup file of the snapshot. When there is no old journal, an older backup file no longer belongs to the
+	 * backup file of the snapshot, so it is deleted.
+	 *
+	 * @throws IOException exception occurs when the journal or the snapshot can not be written
+	 */
+	public void compact() throws IOException {
+		snapshotSaver.update("saveScheduleData");
+		AtomicFile journal = new AtomicFile(JOURNAL_PATH);
+		if (!journal.getFile().exists()){
+			journal.getBackupFile().delete();
+		}
+		FileOutputStream file = journal.startWrite();
+		try {
+			DataOutputStream output = new DataOutputStream(file);
+			codec.writeHeader(output);
+			pending.writeTo(output);
+			output.flush();
+			journal.finishWrite(file);
+		} catch (IOException e) {
+			journal.failWrite(file);
+			throw e;
+		}
+		pending.reset();
+		current = true;
+	}
+
+	/**
+	 * Apply the records in the backup file of the journal, then the records in the journal, to sm.
+	 * When the snapshot was read, the records in the backup file are already in it and applying them again changes
+	 * nothing. When the snapshot could not be read and its backup file was read instead, they are the changes made
+	 * between the two.
+	 *
+	 * @throws IOException exception occurs when the journal can not be read
+	 */
+	public void replay() throws IOException {
+		AtomicFile journal = new AtomicFile(JOURNAL_PATH);
+		replay(journal.getBackupFile());
+		replay(journal.getFile());
+	}
+
+	/**
+	 * Apply the records in one journal file to sm. The end of the file that is not a complete record is cut off.
+	 *
+	 * @param file the journal, or its backup file
+	 * @throws IOException exception occurs when the journal can not be read
+	 */
+	private void replay(File file) throws IOException {
+		if (!file.exists() || file.length() == 0){
+			return;
+		}
+		long valid = 0;
+		replaying = true;
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			codec.readHeader(input);
+			current = codec.getVersion() == BinaryCodec.VERSION;
+			valid = HEADER_SIZE;
+			while (true) {
+				int length = input.readInt();
+				if (length < 0 || valid + 4 + length > file.length()){
+					break;
+				}
+				byte[] record = new byte[length];
+				input.readFully(record);
+				apply(new DataInputStream(new ByteArrayInputStream(record)));
+				valid += 4 + record.length;
+			}
+		} catch (EOFException e) {
+			// the journal ends here, or its last record was not completely written
+		} finally {
+			input.close();
+			replaying = false;
+		}
+		if (valid < file.length()){
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(valid);
+			} finally {
+				raf.close();
+			}
+			if (valid == 0){
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Apply one record to sm. A record whose schedule no longer exists is skipped.
+	 *
+	 * @param record input of the record
+	 * @throws IOException when the record can not be read
+	 */
+	private void apply(DataInputStream record) throws IOException {
+		byte type = record.readByte();
+		if (type == CREATE){
+			String templateId = codec.readString(record);
+			Schedule s = codec.readSchedule(record);
+			if (findSchedule(s.getScheduleID()) == null){
+				sm.recoverSchedule(s, templateId);
+			}
+			return;
+		}
+		String scheduleID = codec.readString(record);
+		Schedule s = findSchedule(scheduleID);
+		if (type == DELETE){
+			sm.deleteSchedule(scheduleID);
+		}else if (s == null){
+			return;
+		}else if (type == ADD_EVENT){
+			String eventName = codec.readString(record);
+			EventTime time = new EventTime(record.readLong(), record.readLong());
+			sm.addValidEvent(time, s, eventName);
+		}else if (type == DELETE_EVENT){
+			String eventName = codec.readString(record);
+			sm.removeValidEvent(new EventTime(record.readLong(), record.readLong()), eventName, s);
+		}else if (type == STATUS){
+			try {
+				sm.changeStatus(scheduleID, codec.readString(record));
+			} catch (SameStatusException e) {
+				// the status was already changed before the snapshot was written
+			}
+		}else if (type == RULE_ADD){
+			String eventName = codec.readString(record);
+			EventTime first = new EventTime(record.readLong(), record.readLong());
+			RecurrenceRule rule = new RecurrenceRule(first, codec.readString(record), record.readInt(),
+					record.readLong());
+			if (!rule.equals(s.getRecurrences().get(eventName))){
+				sm.addValidRecurrence(s, eventName, rule);
+			}
+		}else if (type == RULE_REMOVE){
+			try {
+				sm.deleteRecurrence(scheduleID, codec.readString(record));
+			} catch (ScheduleNotFoundException e) {
+				// the schedule was found above
+			}
+		}
+		// SHARE records of earlier versions are skipped, schedules are shared by their status now
+	}
+
+	/**
+	 * Return the schedule with the given id.
+	 *
+	 * @param scheduleID schedule's id
+	 * @return the schedule, or null when it does not exist
+	 */
+	private Schedule findSchedule(String scheduleID) {
+		try {
+			return sm.getScheduleByID(scheduleID);
+		} catch (ScheduleNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Start a new record of the given type. Fields written to the returned output are added to pending by endRecord.
+	 * Records are written in memory, so writing them never throws IOException.
+	 *
+	 * @param type type of the change
+	 * @param id schedule's id, or template's id for CREATE
+	 * @return output of the record
+	 */
+	private DataOutputStream startRecord(byte type, String id) {
+		recordBuffer = new ByteArrayOutputStream();
+		DataOutputStream record = new DataOutputStream(recordBuffer);
+		try {
+			record.writeByte(type);
+			codec.writeString(record, id);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return record;
+	}
+
+	/**
+	 * Add the length and the fields of the record started by startRecord to pending.
+	 */
+	private void endRecord() {
+		try {
+			new DataOutputStream(pending).writeInt(recordBuffer.size());
+			recordBuffer.writeTo(pending);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void scheduleCreated(Schedule s, String templateId) {
+		if (replaying){
+			return;
+		}
+		DataOutputStream record = startRecord(CREATE, templateId);
+		try {
+			codec.writeSchedule(record, s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+
+	@Override
+	public void scheduleDeleted(String scheduleID) {
+		if (replaying){
+			return;
+		}
+		startRecord(DELETE, scheduleID);
+		endRecord();
+	}
+
+	@Override
+	public void eventAdded(String scheduleID, String eventName, EventTime time) {
+		recordEvent(ADD_EVENT, scheduleID, eventName, time);
+	}
+
+	@Override
+	public void eventDeleted(String scheduleID, String eventName, EventTime time) {
+		recordEvent(DELETE_EVENT, scheduleID, eventName, time);
+	}
+
+	@Override
+	public void statusChanged(String scheduleID, String status) {
+		recordString(STATUS, scheduleID, status);
+	}
+
+	@Override
+	public void recurrenceAdded(String scheduleID, String eventName, RecurrenceRule rule) {
+		if (replaying){
+			return;
+		}
+		DataOutputStream record = startRecord(RULE_ADD, scheduleID);
+		try {
+			codec.writeString(record, eventName);
+			record.writeLong(rule.getFirst().getStart());
+			record.writeLong(rule.getFirst().getEnd());
+			codec.writeString(record, rule.getFrequency());
+			record.writeInt(rule.getCount());
+			record.writeLong(rule.getUntil());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+
+	@Override
+	public void recurrenceRemoved(String scheduleID, String eventName) {
+		recordString(RULE_REMOVE, scheduleID, eventName);
+	}
+
+	/**
+	 * Add a pending record about a time of an event.
+	 *
+	 * @param type ADD_EVENT or DELETE_EVENT
+	 * @param scheduleID schedule's id
+	 * @param eventName event name
+	 * @param time start and end time
+	 */
+	private void recordEvent(byte type, String scheduleID, String eventName, EventTime time) {
+		if (replaying){
+			return;
+		}
+		DataOutputStream record = startRecord(type, scheduleID);
+		try {
+			codec.writeString(record, eventName);
+			record.writeLong(time.getStart());
+			record.writeLong(time.getEnd());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+
+	/**
+	 * Add a pending record with one string about a schedule.
+	 *
+	 * @param type STATUS or RULE_REMOVE
+	 * @param scheduleID schedule's id
+	 * @param value new status, or name of the event that stops repeating
+	 */
+	private void recordString(byte type, String scheduleID, String value) {
+		if (replaying){
+			return;
+		}
+		DataOutputStream record = startRecord(type, scheduleID);
+		try {
+			codec.writeString(record, value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+}
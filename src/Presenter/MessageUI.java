@@ -287,7 +287,7 @@ public class MessageUI {
     private void replyByReg(){
         System.out.println("Your PersonalChatHistory contains messages below: ");
         HashMap<Integer, Message> indexToMsg = new HashMap<>();
-        ArrayList<Message> msgs = facade.mm.getChatHistory().get(userId);
+        ArrayList<Message> msgs = readChatHistory(userId);
         if (msgs != null && !msgs.isEmpty()){
             int i = 1;
             for (Message msg : msgs){
@@ -413,7 +413,7 @@ public class MessageUI {
         while (true) {
             System.out.println("Your PersonalChatHistory contains messages below: ");
             HashMap<Integer, Message> indexToMsg = new HashMap<>();
-            ArrayList<Message> msgs = facade.mm.getChatHistory().get(userId);
+            ArrayList<Message> msgs = readChatHistory(userId);
             if (msgs != null && !msgs.isEmpty()) {
                 int i = 1;
                 for (Message msg : msgs) {
@@ -456,7 +456,7 @@ public class MessageUI {
     private void deleteMsgByReg(String userId){
         System.out.println("Your PersonalChatHistory contains messages below: ");
         HashMap<Integer, Message> indexToMsg = new HashMap<>();
-        ArrayList<Message> msgs = facade.mm.getChatHistory().get(userId);
+        ArrayList<Message> msgs = readChatHistory(userId);
         if (msgs != null && !msgs.isEmpty()){
             int i = 1;
             for (Message msg : msgs){
@@ -478,6 +478,20 @@ public class MessageUI {
         } else{
             System.out.println("You don't have any messages right now. You cannot delete messages."); } }
 
+    /**
+     * a helper method that returns the chat history of a user, or prints that it can not be read.
+     * @param userId the id of the user
+     * @return the messages, or null if the user has no messages or they can not be read.
+     */
+    private ArrayList<Message> readChatHistory(String userId) {
+        try {
+            return facade.mm.getUserChatHistory(userId);
+        } catch (IOException e) {
+            System.out.println("Your PersonalChatHistory cannot be read right now. " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * a method that saves chatHistory and commonInbox information into files when new message is stored or deleted.
      * @throws IOException when facade.frw.saveFile() and facade.frw.events.notify() throws exception.
@@ -62,7 +62,7 @@ public class ScheduleUI {
 
     /**
      * A method for all types users to look at schedules, create/delete/edit schedules or undo deleted schedule.
-     * User can enter 1 to 7 to select what they want to do.
+     * User can enter 1 to 7, or 9 to export schedules, to select what they want to do.
      * Enter 8 to return to main menu.
      * Other options are not accepted. User is allowed to type the option again till it is valid.
      * @param templateId template id that used to create schedule, must be selected first
@@ -81,7 +81,8 @@ public class ScheduleUI {
                     "'6' to see inside or edit a schedule(including others' schedule), \n" +
                     "'7' to undo previously deleted schedule, \n" +
                     "(please notice that you are not allowed to undo previously deleted schedule once you exit to the main menu), \n" +
-                    "'8' to return to the main menu: ");
+                    "'8' to return to the main menu, \n" +
+                    "'9' to export my schedules or public schedules to a .ics file: ");
             String option = sc.nextLine();
             switch (option) {
                 case "1":
@@ -89,10 +90,11 @@ public class ScheduleUI {
                         bool = false;
                     }break;
                 case "2":
-                    facade.ss.displayPublicSchedule(); break;
+                    facade.ss.displayPublicSchedule(sc); break;
                 case "3":
                     try {
                         facade.ss.displayUserSchedule(userId);
+                        facade.ss.displayUserEventsNow(userId);
                     } catch (ScheduleNotFoundException e) {
                         System.out.println(e.getMessage());
                     } break;
@@ -100,7 +102,7 @@ public class ScheduleUI {
                     if (userType.equals("admin")) {
                         System.out.println("There is no schedule shared with an admin user!");
                     } else {
-                        facade.ss.displayFriendsSchedule(userId);
+                        facade.ss.displayFriendsSchedule(userId, facade.um);
                     } break;
                 case "5":
                     runScheduleOption5(); break;
@@ -115,12 +117,36 @@ public class ScheduleUI {
                         facade.exitTemp();
                     }
                     bool = false; break;
+                case "9":
+                    runScheduleOption9(); break;
                 default:
                     System.out.println("The option you entered does not exist! Please try again."); break;
             }
         }
     }
 
+    /**
+     * Helper method of runSchedule, used when user choose to export schedules.
+     * Let user choose to export their own schedules or all public schedules, and the file to export to.
+     */
+    private void runScheduleOption9() {
+        System.out.println("Enter '1' to export my schedules, or '2' to export public schedules: ");
+        String option = sc.nextLine();
+        if (!option.equals("1") && !option.equals("2")) {
+            System.out.println("The option you entered does not exist!");
+            return;
+        }
+        System.out.println("Please input the path of the .ics file: ");
+        String path = sc.nextLine();
+        try {
+            int count = option.equals("1") ? facade.exportUserSchedules(userId, path) :
+                    facade.exportPublicSchedules(path);
+            System.out.println(count + " events are exported.");
+        } catch (IOException e) {
+            System.out.println("The file can not be written.");
+        }
+    }
+
     /**
      * Helper method of runSchedule, used when user choose to create a schedule.
      * Let user enter info about the schedule they want to create, save created schedule which is not created by trial.
@@ -143,11 +169,8 @@ public class ScheduleUI {
                 String scheduleDate;
                 facade.ss.enterDatebyTemplateType(templateId);
                 scheduleDate = sc.nextLine();
-                String scheduleId = facade.ss.createSchedule(userId, status, scheduleName, scheduleDate, templateId);
+                facade.ss.createSchedule(userId, status, scheduleName, scheduleDate, templateId);
                 System.out.println("New schedule is created.");
-                if (status.equals("friend-only")) {
-                    facade.sm.shareScheduleToFriends(scheduleId, facade.um);
-                }
                 if (!(userType.equals("trial"))) {
                     facade.saveSchedule(userId);
                     facade.exitTemp();
@@ -165,8 +188,6 @@ public class ScheduleUI {
                 System.out.println("You have not selected a template. Please select one first. You can choose " +
                         "'play with template' to select one.");
                 return false;
-            } catch (ScheduleNotFoundException e) {
-                System.out.println(e.getMessage());
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -211,7 +232,7 @@ public class ScheduleUI {
                     }
                     String tempID = facade.sm.getScheduleTempMap().get(scheduleID);
                     if (userType.equals("admin") || facade.sm.checkScheduleBelongs(userId, scheduleID)) {
-                        if (facade.um.checkUnfreeze().contains(facade.sm.getScheduleByID(scheduleID).getAuthor()) &&
+                        if (facade.um.isUnfrozen(facade.sm.getScheduleByID(scheduleID).getAuthor()) &&
                                 facade.ss.deleteSchedule(scheduleID)) {
                             facade.ss.addDeletedScheduleAndTemp(deleteS, tempID);
                             System.out.println("Delete successfully.");
@@ -303,7 +324,7 @@ public class ScheduleUI {
                     System.out.println("There is no such schedule number.");
                 }
             } else {
-                facade.ss.displayFriendsSchedule(userId);
+                facade.ss.displayFriendsSchedule(userId, facade.um);
                 System.out.println("The above are the schedules shared with you. \n");
                 System.out.println("You can input one schedule ID above (please input ID, not the number ahead), \n" +
                         "or you can input a private schedule ID if your friend told you through message before: ");
@@ -325,7 +346,7 @@ public class ScheduleUI {
      * @return true if not freeze, false if freeze
      */
     private boolean ifUnfreeze(Schedule s) {
-        if (facade.um.checkUnfreeze().contains(s.getAuthor())) {
+        if (facade.um.isUnfrozen(s.getAuthor())) {
             try {
                 editSchedule(s.getScheduleID());
                 if (!(userType.equals("trial"))) {
@@ -349,7 +370,7 @@ public class ScheduleUI {
      * A helper method used when user choose to see inside or edit a schedule
      * allows a user to edit selected schedule, such as create/delete/(undo deleted) events,
      * update/undo schedule's status, display all events.
-     * User can enter 1 to 6 to select what they want to do with this schedule
+     * User can enter 1 to 6, 8 to import events from a file or 9 to export this schedule, to select what they want to do with this schedule
      * Enter 7 to exit this schedule.
      * Other options are not accepted. User is allowed to type the option again till it is valid.
      */
@@ -363,7 +384,9 @@ public class ScheduleUI {
                     "'5' to undo changing status of this schedule, \n" +
                     "(please notice that you are not allowed to undo changing status of this schedule once you exit this schedule), \n" +
                     "'6' to undo deleting a previous event, \n" +
-                    "'7' to exit this schedule: ");
+                    "'7' to exit this schedule, \n" +
+                    "'8' to import events from a .csv or .ics file, \n" +
+                    "'9' to export this schedule to a .ics file: ");
             String option = sc.nextLine();
             switch (option) {
                 case "1":
@@ -385,7 +408,7 @@ public class ScheduleUI {
                     } break;
                 case "5":
                     try {
-                        facade.ss.restoreStatus(scheduleId, facade.um);
+                        facade.ss.restoreStatus(scheduleId);
                     } catch (SameStatusException e) {
                         System.out.println(e.getMessage());
                     } break;
@@ -401,12 +424,39 @@ public class ScheduleUI {
                         facade.saveSchedule(userId);
                         facade.exitTemp();
                     } break label;
+                case "8":
+                    editScheduleOption8(scheduleId); break;
+                case "9":
+                    try {
+                        System.out.println("Please input the path of the .ics file: ");
+                        System.out.println(facade.exportSchedule(scheduleId, sc.nextLine()) + " events are exported.");
+                    } catch (ScheduleNotFoundException e) {
+                        System.out.println(e.getMessage());
+                    } catch (IOException e) {
+                        System.out.println("The file can not be written.");
+                    } break;
                 default:
                     System.out.println("The option you entered does not exist! Please try again."); break;
             }
         }
     }
 
+    /**
+     * Helper method used when user want to import events from a file
+     * @param scheduleId schedule id
+     */
+    private void editScheduleOption8(String scheduleId) {
+        System.out.println("Please input the path of the .csv or .ics file. In a .csv file, each line is " +
+                "event name,start time,end time, with the times in the same format as you type them in: ");
+        try {
+            facade.importEvents(scheduleId, sc.nextLine());
+        } catch (ScheduleNotFoundException | TemplateNotFoundException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("The file can not be read.");
+        }
+    }
+
     /**
      * Helper method used when user want to delete a event
      * @param scheduleId schedule id
@@ -415,6 +465,15 @@ public class ScheduleUI {
      */
     private boolean editScheduleOption2(String scheduleId, String eventName) {
         try {
+            if (facade.sm.isRecurring(scheduleId, eventName)) {
+                System.out.println("This event repeats. Enter 'all' to stop it from repeating, " +
+                        "or anything else to delete a time that was added once: ");
+                if (sc.nextLine().equals("all")) {
+                    facade.sm.deleteRecurrence(scheduleId, eventName);
+                    System.out.println("event successfully stops repeating");
+                    return true;
+                }
+            }
             ArrayList<String> startEnd = facade.ss.getStartEndbyType(scheduleId, sc);
             if (!(facade.sm.deleteEvent(scheduleId, eventName, startEnd.get(0), startEnd.get(1)))) {
                 System.out.println("The event you want to delete does not exist!");
@@ -483,9 +542,6 @@ public class ScheduleUI {
                         try {
                             String prevstatus = facade.sm.getScheduleByID(scheduleId).getStatus();
                             facade.sm.changeStatus(scheduleId, status);
-                            if (status.equals("friend-only")) {
-                                facade.sm.shareScheduleToFriends(scheduleId, facade.um);
-                            }
                             System.out.println("Status successfully updated to " + status + "!");
                             facade.ss.addPreviousStatus(prevstatus);
                             break;
@@ -83,7 +83,12 @@ public class TemplateUI {
                         }
                         try {
                             int index = Integer.parseInt(option2);
-                            facade.ts.delete(indexToId.get(index));
+                            if (!facade.ts.delete(indexToId.get(index))) {
+                                System.out.println("This template is used by " +
+                                        facade.sm.getTemplateUsage(indexToId.get(index)) +
+                                        " schedules and can not be deleted. Please choose another one.");
+                                continue;
+                            }
                             facade.exitTemp();
                             System.out.println("The template has successfully deleted. Now back to the main menu.");
                             break;
@@ -102,6 +107,7 @@ public class TemplateUI {
                         int index = Integer.parseInt(option2);
                         Template t = facade.tm.getTemplateById(indexToId.get(index));
                         setTemplateLimits(t);
+                        facade.revalidateTemplate(t.getTemplateId());
                         facade.exitTemp();
                     } catch (TemplateNotFoundException e) {
                         System.out.println("The template id is not valid. Please try again.");
@@ -8,6 +8,9 @@ import UseCase.ScheduleNotFoundException;
 import UseCase.UserNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -24,6 +27,7 @@ import java.util.Scanner;
  * templateUI: A templateUI object
  * messageUI: A MessageUI object
  * frw: A FileReadWriter object
+ * SUGGESTED_FRIENDS: the largest number of users shown as users that user may know
  *
  * @author Kexin Sha
  * @author Jessica Wang
@@ -35,6 +39,7 @@ import java.util.Scanner;
  * @author Chuanrun Zhang
  */
 public class UserUI {
+	private static final int SUGGESTED_FRIENDS = 10;
 	private LoginSystem ls;
 	private Facade facade;
 	private Scanner sc;
@@ -181,6 +186,7 @@ public class UserUI {
 				}
 			} else if (option.equals("5") && !userType.equals("trial")){
 				if (userType.equals("admin")){
+					displaySuspended();
 					System.out.println("The following is the list of all users' emails: ");
 					ls.displayUserInfo(email);
 					System.out.println("Please enter the email of the user you want to suspend: ");
@@ -210,9 +216,9 @@ public class UserUI {
 				System.out.println("Please enter the period you want to freeze: ");
 				try{
 					int times = Integer.parseInt(sc.nextLine());
-					ls.userFreeze(times);
+					int frozen = ls.userFreeze(times);
 					frw.saveFile("saveFreeze");
-					System.out.println("Freeze successfully!");
+					System.out.println("Freeze successfully! " + frozen + " more users are frozen.");
 				}catch (NumberFormatException e){
 					System.out.println("The number of days you entered is not an integer. Please try again.");
 				}
@@ -235,14 +241,29 @@ public class UserUI {
 		}
 	}
 
+	/**
+	 * A helper method that print out the users who are suspended now and when they can login back.
+	 */
+	private void displaySuspended() {
+		LinkedHashMap<String, Date> suspended = ls.suspendedUsers();
+		if (suspended.isEmpty()){
+			System.out.println("No users are suspended now.");
+			return;
+		}
+		System.out.println("The following users are suspended now: ");
+		for (Map.Entry<String, Date> user: suspended.entrySet()){
+			System.out.println(user.getKey() + " until " + user.getValue());
+		}
+	}
+
 	/**
 	 * A helper method that allow user to chose to add or delete user.
 	 *
 	 * @throws IOException exception occurs when we call friendEdition
 	 */
 	private void editFriend() throws IOException {
-		System.out.println("Enter '1' to add a new friend, \n'2' to delete a friend, \nor others to return to " +
-				"the previous menu:");
+		System.out.println("Enter '1' to add a new friend, \n'2' to delete a friend, \n'3' to see your mutual " +
+				"friends with a user, \n'4' to see the users you may know, \nor others to return to the previous menu:");
 		System.out.println("The followings are all your friends: ");
 		ls.displayFriend(email);
 		String option = sc.nextLine();
@@ -250,6 +271,42 @@ public class UserUI {
 			friendEdition("add");
 		} else if (option.equals("2")){
 			friendEdition("delete");
+		} else if (option.equals("3")){
+			mutualFriends();
+		} else if (option.equals("4")){
+			suggestedFriends();
+		}
+	}
+
+	/**
+	 * A helper method that print out the mutual friends of user and another user
+	 */
+	private void mutualFriends() {
+		System.out.println("Please enter the email of the user: ");
+		String otherEmail = sc.nextLine();
+		if (!ls.emailExist(otherEmail)) {
+			System.out.println("The email you entered does not exist! Please try again.");
+			return;
+		}
+		ArrayList<String> mutual = ls.mutualFriendList(email, otherEmail);
+		if (mutual.isEmpty()){
+			System.out.println("You don't have any mutual friends with this user.");
+		}
+		for (int i = 0; i < mutual.size(); i++) {
+			System.out.println(i + 1 + ") " + mutual.get(i));
+		}
+	}
+
+	/**
+	 * A helper method that print out the friends of user's friends, who are not user's friends yet
+	 */
+	private void suggestedFriends() {
+		ArrayList<String> suggested = ls.suggestedFriendList(email, SUGGESTED_FRIENDS);
+		if (suggested.isEmpty()){
+			System.out.println("There are no users you may know yet.");
+		}
+		for (int i = 0; i < suggested.size(); i++) {
+			System.out.println(i + 1 + ") " + suggested.get(i));
 		}
 	}
 
@@ -268,15 +325,14 @@ public class UserUI {
 		String friendEmail = sc.nextLine();
 		if (!ls.emailExist(friendEmail)) {
 			System.out.println("The email you entered does not exist! Please try again.");
-		} else if (ls.friendList(email).contains(friendEmail) && option.equals("add")){
+		} else if (ls.isFriend(email, friendEmail) && option.equals("add")){
 			System.out.println("This user is already your friend.");
-		} else if (!ls.friendList(email).contains(friendEmail) && option.equals("delete")){
+		} else if (!ls.isFriend(email, friendEmail) && option.equals("delete")){
 			System.out.println("This user is not your friend. \nDelete Failed");
 		} else{
 			if (option.equals("add")){
 				if (ls.friendAddition(email,friendEmail)){
 					frw.saveFile("saveUserInfo");
-					facade.ss.updateFriends(ls.getId(email),ls.getId(friendEmail));
 					System.out.println("Added successfully!");
 				}else if (ls.getType(ls.getId(friendEmail)).equals("admin")){
 					System.out.println("You can not add an admin as your friend! Please try again.");
@@ -345,6 +401,9 @@ public class UserUI {
 							ls.setLoginTime(email, System.currentTimeMillis());
 							frw.saveFile("saveFreeze");
 							frw.saveFile("saveLoginTime");
+							if (ls.passwordsRehashed()){
+								frw.saveFile("saveUserInfo");
+							}
 							userId = ls.getId(email);
 							System.out.println("Log in successfully! Your user id is: " + userId + ".");
 							scheduleUI.setUserId(userId);
@@ -385,7 +444,7 @@ public class UserUI {
 						frw.events.unsubscribe("saveTempPwd", sf);
 						System.out.println("An 'email'(the text file with your email as the file name)" +
 								" has been created that contains a temporary password that you" +
-								" can user to log in. \nAfter you use it to login, " +
+								" can user to log in until " + info.get(3) + ". \nAfter you use it to login, " +
 								"please change to a new permanent password.");
 						return -1;
 					}
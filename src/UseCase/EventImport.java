@@ -0,0 +1,169 @@
+package UseCase;
+
+import Entity.EventTime;
+import Entity.RecurrenceRule;
+
+import java.util.*;
+
+/**
+ * A class that keeps the events read from a file, to be added to a schedule all at once by
+ * ScheduleManager.importEvents, and the errors of the lines that can not be imported.
+ * lines: line number of each event in the file.
+ * names: name of each event.
+ * times: start and end time of each event.
+ * ruleLines: line number of each event that repeats in the file.
+ * ruleNames: name of each event that repeats.
+ * rules: how each event that repeats repeats.
+ * errors: TreeMap that map line number to the reason why the line is not imported, sorted by line number.
+ * added: number of events and events that repeat that are added to the schedule.
+ */
+public class EventImport {
+    private List<Integer> lines;
+    private List<String> names;
+    private List<EventTime> times;
+    private List<Integer> ruleLines;
+    private List<String> ruleNames;
+    private List<RecurrenceRule> rules;
+    private TreeMap<Integer, String> errors;
+    private int added;
+
+    /**
+     * constructs EventImport with no events and no errors.
+     */
+    public EventImport() {
+        lines = new ArrayList<>();
+        names = new ArrayList<>();
+        times = new ArrayList<>();
+        ruleLines = new ArrayList<>();
+        ruleNames = new ArrayList<>();
+        rules = new ArrayList<>();
+        errors = new TreeMap<>();
+    }
+
+    /**
+     * Add an event that is read from the file.
+     * @param line line number of the event in the file.
+     * @param name event's name.
+     * @param time start and end time of the event.
+     */
+    public void addEvent(int line, String name, EventTime time) {
+        lines.add(line);
+        names.add(name);
+        times.add(time);
+    }
+
+    /**
+     * Add an event that repeats, which is read from the file.
+     * @param line line number of the event in the file.
+     * @param name event's name.
+     * @param rule how the event repeats.
+     */
+    public void addRecurringEvent(int line, String name, RecurrenceRule rule) {
+        ruleLines.add(line);
+        ruleNames.add(name);
+        rules.add(rule);
+    }
+
+    /**
+     * Record that a line can not be imported.
+     * @param line line number in the file.
+     * @param message the reason why the line is not imported.
+     */
+    public void addError(int line, String message) {
+        errors.put(line, message);
+    }
+
+    /**
+     * Return the number of events that are read from the file.
+     * @return number of events.
+     */
+    public int size() {
+        return times.size();
+    }
+
+    /**
+     * Return the line number of the i-th event.
+     * @param i index of the event, in the order they are read.
+     * @return line number in the file.
+     */
+    public int getLine(int i) {
+        return lines.get(i);
+    }
+
+    /**
+     * Return the name of the i-th event.
+     * @param i index of the event, in the order they are read.
+     * @return event's name.
+     */
+    public String getName(int i) {
+        return names.get(i);
+    }
+
+    /**
+     * Return the start and end time of the i-th event.
+     * @param i index of the event, in the order they are read.
+     * @return start and end time.
+     */
+    public EventTime getTime(int i) {
+        return times.get(i);
+    }
+
+    /**
+     * Return the number of events that repeat, which are read from the file.
+     * @return number of events that repeat.
+     */
+    public int ruleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Return the line number of the i-th event that repeats.
+     * @param i index of the event that repeats, in the order they are read.
+     * @return line number in the file.
+     */
+    public int getRuleLine(int i) {
+        return ruleLines.get(i);
+    }
+
+    /**
+     * Return the name of the i-th event that repeats.
+     * @param i index of the event that repeats, in the order they are read.
+     * @return event's name.
+     */
+    public String getRuleName(int i) {
+        return ruleNames.get(i);
+    }
+
+    /**
+     * Return how the i-th event that repeats repeats.
+     * @param i index of the event that repeats, in the order they are read.
+     * @return the rule of the event.
+     */
+    public RecurrenceRule getRule(int i) {
+        return rules.get(i);
+    }
+
+    /**
+     * Getter of errors.
+     * @return map from line number to the reason why the line is not imported, sorted by line number.
+     */
+    public SortedMap<Integer, String> getErrors() {
+        return Collections.unmodifiableSortedMap(errors);
+    }
+
+    /**
+     * Getter of added.
+     * @return number of events and events that repeat that are added to the schedule.
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    /**
+     * Setter of added.
+     * @param added number of events and events that repeat that are added to the schedule.
+     */
+    void setAdded(int added) {
+        this.added = added;
+    }
+}
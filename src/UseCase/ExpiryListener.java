@@ -0,0 +1,22 @@
+package UseCase;
+
+import java.util.List;
+
+/**
+ * An interface for the observers of the expiry thread of UserManager. UserManager calls its listener after the
+ * thread removes suspensions or temporary passwords that have expired, so that the change can be saved.
+ * The listener is called on the expiry thread, while UserManager is not locked.
+ */
+public interface ExpiryListener {
+    /**
+     * Called when suspensions have expired and are removed.
+     * @param emails emails of the users who are not suspended anymore.
+     */
+    void suspensionsExpired(List<String> emails);
+
+    /**
+     * Called when temporary passwords have expired and are removed.
+     * @param userIds ids of the users whose temporary passwords are removed.
+     */
+    void tempPasswordsExpired(List<String> userIds);
+}
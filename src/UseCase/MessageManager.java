@@ -2,17 +2,21 @@ package UseCase;
 
 import Entity.*;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 
 /**
  *  a class called MessageManager which is used to send, reply, delete and read messages by users.
- *  It has 3 attributes: um, chatHistory, commonInbox.
+ *  It has 6 attributes: um, chatHistory, commonInbox, store, changedUsers, cacheSize.
  *  um: a UserManager class
- *  chatHistory: a hashmap with key (userid) and value (user's messages chat history)
+ *  chatHistory: a hashmap with key (userid) and value (user's messages chat history). When there is a store, it
+ *  only contains the users whose messages are loaded, in the order they are used, the least recently used first.
  *  commonInbox: an ArrayList stores the messages interact with admin users.
+ *  store: where the chat history of each user is loaded from and saved to, or null if chatHistory is loaded and
+ *  saved as a whole.
+ *  changedUsers: ids of users whose messages are changed since they were last saved to store.
+ *  cacheSize: how many users' messages are kept in chatHistory when they are not changed.
  *
  * @author Siqing Xu
  * @author Galaxy Zhang
@@ -23,6 +27,9 @@ public class MessageManager {
     public UserManager um;
     private HashMap<String, ArrayList<Message>> chatHistory;
     private ArrayList<Message> commonInbox;
+    private MessageStore store;
+    private Set<String> changedUsers;
+    private int cacheSize;
 
 
     /**
@@ -35,9 +42,112 @@ public class MessageManager {
         this.um = um;
         this.commonInbox = new ArrayList<>();
         this.chatHistory = new HashMap<>();
+        this.changedUsers = new HashSet<>();
 
     }
 
+    /**
+     * Load and save the chat history of each user through store. A user's messages are only loaded the first time
+     * they are used, and at most cacheSize users' messages that are not changed are kept in memory.
+     * @param store where the chat history is loaded from and saved to.
+     * @param cacheSize how many users' messages are kept when they are not changed, at least 1.
+     */
+    public void setMessageStore(MessageStore store, int cacheSize) {
+        this.store = store;
+        this.cacheSize = Math.max(cacheSize, 1);
+        this.chatHistory = new LinkedHashMap<>(16, 0.75f, true);
+        this.changedUsers = new HashSet<>();
+    }
+
+    /**
+     * Return whether the chat history is loaded and saved through a MessageStore.
+     * @return true if there is a store.
+     */
+    public boolean hasMessageStore() {
+        return store != null;
+    }
+
+    /**
+     * Save the messages of the users that are changed to store, then let go of the messages that are not used
+     * recently.
+     * @throws IOException when the messages can not be saved.
+     */
+    public void saveChatHistory() throws IOException {
+        HashMap<String, ArrayList<Message>> changed = new HashMap<>();
+        for (String userId : changedUsers) {
+            changed.put(userId, chatHistory.get(userId));
+        }
+        store.save(changed);
+        changedUsers.clear();
+        evictIdleUsers();
+    }
+
+    /**
+     * Return the messages of a user, loading them from store when they are not loaded yet.
+     * @param userId the id of the user.
+     * @return the messages, or null if the user has no messages.
+     * @throws IOException when the saved messages can not be read.
+     */
+    public ArrayList<Message> getUserChatHistory(String userId) throws IOException {
+        ArrayList<Message> messages = chatHistory.get(userId);
+        if (messages == null && store != null && store.getUserIds().contains(userId)) {
+            messages = store.load(userId);
+            chatHistory.put(userId, messages);
+            evictIdleUsers();
+        }
+        return messages;
+    }
+
+    /**
+     * Return the messages of a user that are going to be changed, creating an empty list if the user has no messages.
+     * @param userId the id of the user.
+     * @return the messages.
+     * @throws IOException when the saved messages can not be read.
+     */
+    private ArrayList<Message> changeUserChatHistory(String userId) throws IOException {
+        ArrayList<Message> messages = getUserChatHistory(userId);
+        changedUsers.add(userId);
+        if (messages == null) {
+            messages = new ArrayList<>();
+            chatHistory.put(userId, messages);
+        }
+        return messages;
+    }
+
+    /**
+     * Remove the least recently used users' messages that are not changed from chatHistory, until at most
+     * cacheSize users' messages are left or every message left is changed. The most recently used user's messages
+     * are always kept.
+     */
+    private void evictIdleUsers() {
+        if (store == null) {
+            return;
+        }
+        Iterator<Map.Entry<String, ArrayList<Message>>> users = chatHistory.entrySet().iterator();
+        int extra = chatHistory.size() - cacheSize;
+        int older = chatHistory.size() - 1;
+        while (extra > 0 && older-- > 0) {
+            if (!changedUsers.contains(users.next().getKey())) {
+                users.remove();
+                extra--;
+            }
+        }
+    }
+
+    /**
+     * Return the ids of all users that have messages.
+     * @return user ids.
+     * @throws IOException when the saved messages can not be read.
+     */
+    private Set<String> getChatUserIds() throws IOException {
+        Set<String> userIds = new LinkedHashSet<>();
+        if (store != null) {
+            userIds.addAll(store.getUserIds());
+        }
+        userIds.addAll(chatHistory.keySet());
+        return userIds;
+    }
+
     /**
      * Create a new message with the attributes of a message: senderID, receiverID and content.
      * @param senderID
@@ -60,73 +170,62 @@ public class MessageManager {
 
 
     /**
-     * a setter of the chatHistory
+     * a setter of the chatHistory. When there is a store, all the given messages are saved to it next time.
      * @param chatHistory takes the given parameter as the new chatHistory.
      */
     public void setChatHistory(HashMap<String, ArrayList<Message>> chatHistory) {
-        this.chatHistory = chatHistory;
+        if (store == null) {
+            this.chatHistory = chatHistory;
+            return;
+        }
+        this.chatHistory.clear();
+        this.chatHistory.putAll(chatHistory);
+        changedUsers.addAll(chatHistory.keySet());
     }
 
 
     /**
      * a method to send a message to admin user and add the message into the commonInbox.
      * @param message the message used to sent.
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void sendToAdmin(Message message){
+    public void sendToAdmin(Message message) throws IOException {
+        ArrayList<Message> history = changeUserChatHistory(message.getSenderID());
         ArrayList<Message> allMessages = getCommonInbox();
         allMessages.add(message);
         setCommonInbox(allMessages);
-        if (chatHistory.isEmpty()){
-            chatHistory = new HashMap<>();
-            setChatHistory(chatHistory);
-        }
-        if (chatHistory.get(message.getSenderID()) == null){
-            ArrayList<Message> messages = new ArrayList<>();
-            messages.add(message);
-            chatHistory.put(message.getSenderID(),messages);
-        } else {chatHistory.get(message.getSenderID()).add(message);}
-        setChatHistory(chatHistory);
+        history.add(message);
         }
 
     /**
      * a method used to send message from admin to some other users.
      * @param message the message used to sent.
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void admintoSomeUsers(Message message) {
+    public void admintoSomeUsers(Message message) throws IOException {
+        ArrayList<Message> history = changeUserChatHistory(message.getReceiverID());
         commonInbox.add(message);
-        if(chatHistory.isEmpty()){
-            chatHistory = new HashMap<>();
-        }
-        if (chatHistory.get(message.getReceiverID()) == null){
-            ArrayList<Message> messages = new ArrayList<>();
-            chatHistory.put(message.getReceiverID(), messages);
-        }
-        chatHistory.get(message.getReceiverID()).add(message);
+        history.add(message);
     }
 
     /**
      * a method used to send a message from admin to all users.
      * @param message the message used to sent.
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void sendtoAllUser(Message message) {
+    public void sendtoAllUser(Message message) throws IOException {
         ArrayList<PermanentUser> pms = um.getPermanentUsers();
         for (PermanentUser pm : pms) {
             if (!pm.getUserType().equals("admin")){
                 String userid = pm.getUserId();
                 Message copy = makeMessageCopy(message);
                 copy.setReceiverID(userid);
+                ArrayList<Message> history = changeUserChatHistory(copy.getReceiverID());
                 commonInbox.add(copy);
-                if (chatHistory.isEmpty()) {
-                    chatHistory = new HashMap<>();
-                }
-                if (chatHistory.get(copy.getReceiverID()) == null) {
-                    ArrayList<Message> messages = new ArrayList<>();
-                    chatHistory.put(copy.getReceiverID(), messages);
-                }
-                chatHistory.get(copy.getReceiverID()).add(copy);
+                history.add(copy);
             }
         }
     }
@@ -135,43 +234,17 @@ public class MessageManager {
      * a method used to send message to permanent users except admin.
      * @param message the message user want to sent.
      * @throws UserNotFoundException
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void sendMessage(Message message) throws UserNotFoundException{
+    public void sendMessage(Message message) throws UserNotFoundException, IOException {
         String senderid = message.getSenderID();
         String receiverid = message.getReceiverID();
-        ArrayList<PermanentUser> pms = um.getPermanentUsers();
-        ArrayList<String> userids = new ArrayList<>();
-        for (PermanentUser pm : pms) {
-            userids.add(pm.getUserId());
-        }
-        if (userids.contains(receiverid)) {
-                if (chatHistory == null) {
-                    chatHistory = new HashMap<>();
-                }
-                ArrayList<Message> sendermessage = chatHistory.get(senderid);
-                ArrayList<Message> receivermessage = chatHistory.get(receiverid);
-                if (sendermessage != null && receivermessage != null) {
-                    sendermessage.add(message);
-                    receivermessage.add(message);
-                } else if (sendermessage != null) {
-                    ArrayList<Message> messages = new ArrayList<>();
-                    messages.add(message);
-                    chatHistory.put(receiverid, messages);
-                    sendermessage.add(message);
-                } else if (receivermessage != null) {
-                    ArrayList<Message> messages = new ArrayList<>();
-                    messages.add(message);
-                    chatHistory.put(senderid, messages);
-                    receivermessage.add(message);
-                } else {
-                    ArrayList<Message> messages1 = new ArrayList<>();
-                    ArrayList<Message> messages2 = new ArrayList<>();
-                    messages1.add(message);
-                    messages2.add(message);
-                    chatHistory.put(senderid, messages1);
-                    chatHistory.put(receiverid, messages2);
-                }
+        if (um.getUserById(receiverid) != null) {
+                ArrayList<Message> senderHistory = changeUserChatHistory(senderid);
+                ArrayList<Message> receiverHistory = changeUserChatHistory(receiverid);
+                senderHistory.add(message);
+                receiverHistory.add(message);
             }
         else {
             throw new UserNotFoundException("The receiver does not exist or is not a permanent user." +
@@ -196,10 +269,11 @@ public class MessageManager {
      * a method used to delete a message.
      * @param message the message we want to delete
      * @param ownerid the operating user id
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void deleteMessage(Message message, String ownerid) {
-        chatHistory.get(ownerid).remove(message);
+    public void deleteMessage(Message message, String ownerid) throws IOException {
+        changeUserChatHistory(ownerid).remove(message);
     }
 
     /**
@@ -212,12 +286,22 @@ public class MessageManager {
     }
 
     /**
-     * a getter of the ChatHistory.
+     * a getter of the ChatHistory. When there is a store, the messages of every user are loaded, so
+     * getUserChatHistory should be used to get the messages of one user.
      * @return  the chat history.
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public HashMap<String, ArrayList<Message>> getChatHistory() {
-        return chatHistory;
+    public HashMap<String, ArrayList<Message>> getChatHistory() throws IOException {
+        if (store == null) {
+            return chatHistory;
+        }
+        HashMap<String, ArrayList<Message>> all = new HashMap<>();
+        for (String userId : getChatUserIds()) {
+            ArrayList<Message> messages = chatHistory.get(userId);
+            all.put(userId, messages != null ? messages : store.load(userId));
+        }
+        return all;
     }
 
     /**
@@ -238,22 +322,22 @@ public class MessageManager {
     /**
      * a toString method that shows a user's personal chat history.
      * @param userid the id of the user
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void UserChatHistoryString(String userid){
-        ArrayList<Message> msgs = chatHistory.get(userid);
+    public void UserChatHistoryString(String userid) throws IOException {
+        ArrayList<Message> msgs = getUserChatHistory(userid);
         System.out.println("\nUserid: " + userid + "\nPersonalChatHistory: " + msgs + "\n");
     }
 
     /**
      * a toString method that shows all users' chat history.
+     * @throws IOException when the saved messages can not be read.
      */
 
-    public void AllChatHistoryString(){
-        Map<String, ArrayList<Message>> map = chatHistory;
-        for (Map.Entry<String, ArrayList<Message>> entry : map.entrySet()) {
-            String userid = entry.getKey();
-            ArrayList<Message> msgs = entry.getValue();
+    public void AllChatHistoryString() throws IOException {
+        for (String userid : getChatUserIds()) {
+            ArrayList<Message> msgs = getUserChatHistory(userid);
             System.out.println("\nUserid: " + userid + "\nPersonalChatHistory: " + msgs + "\n");
        }
     }
@@ -264,11 +348,9 @@ public class MessageManager {
      * @return the user's email.
      */
     public String getUserEmail(String id) {
-        ArrayList<PermanentUser> pms = um.getPermanentUsers();
-        for (PermanentUser user : pms) {
-            if (user.getUserId().equals(id)) {
-                return user.getEmail();
-            }
+        PermanentUser user = um.getUserById(id);
+        if (user != null) {
+            return user.getEmail();
         }
         return null;
     }
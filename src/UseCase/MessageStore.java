@@ -0,0 +1,40 @@
+package UseCase;
+
+import Entity.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An interface for a storage that keeps the chat history of each user apart, so that MessageManager can load the
+ * messages of one user only when they are needed.
+ *
+ * @author Siqing Xu
+ * @author Galaxy Zhang
+ * @author Christine Chen
+ */
+public interface MessageStore {
+    /**
+     * Return the ids of all users that have a saved chat history.
+     * @return user ids.
+     * @throws IOException when the saved chat history can not be read.
+     */
+    Set<String> getUserIds() throws IOException;
+
+    /**
+     * Load the saved chat history of one user.
+     * @param userId the id of the user.
+     * @return the messages, or null if the user has no saved chat history.
+     * @throws IOException when the saved chat history can not be read.
+     */
+    ArrayList<Message> load(String userId) throws IOException;
+
+    /**
+     * Save the chat history of the given users.
+     * @param changed map from user id to all messages of the user.
+     * @throws IOException when the chat history can not be saved.
+     */
+    void save(Map<String, ArrayList<Message>> changed) throws IOException;
+}
@@ -0,0 +1,201 @@
+package UseCase;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class that hashes passwords with PBKDF2 and a random salt, and checks passwords against their hashes, on a
+ * bounded pool of worker threads, so that the slow hashing of many logins at once is done by at most a fixed number
+ * of threads, and the logins wait in a queue of at most a fixed size.
+ * When the queue is full, the thread that asks for a hash computes it itself, which slows down that thread instead
+ * of letting the queue grow.
+ *
+ * A hash is stored as "pbkdf2$iterations$salt$hash", with salt and hash in Base64. Any other stored password is a
+ * plain text password saved by an older version, which is checked by comparing it and should be hashed again.
+ *
+ * ALGORITHM: the PBKDF2 algorithm.
+ * PREFIX: the start of every stored hash.
+ * SALT_BYTES: length of the salt.
+ * HASH_BITS: length of the hash.
+ * iterations: the cost of new hashes, the number of iterations of PBKDF2.
+ * workers: the pool of threads that hash and check passwords.
+ * maxQueueDepth: the largest number of tasks that waited in the queue of workers at once.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private final int iterations;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger maxQueueDepth;
+
+    /**
+     * constructs PasswordHasher and starts its worker threads, which do not keep the program running.
+     * @param iterations the cost of new hashes, the number of iterations of PBKDF2.
+     * @param threads number of worker threads.
+     * @param queueSize the largest number of tasks that wait for a worker.
+     * @throws IllegalArgumentException when iterations, threads or queueSize is not positive.
+     */
+    public PasswordHasher(int iterations, int threads, int queueSize) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("The number of iterations should be positive.");
+        }
+        this.iterations = iterations;
+        this.maxQueueDepth = new AtomicInteger();
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "PasswordHasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Getter of iterations.
+     * @return the cost of new hashes.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Return the number of tasks that wait for a worker now.
+     * @return depth of the queue.
+     */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Getter of maxQueueDepth.
+     * @return the largest number of tasks that waited for a worker at once.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Hash a password on a worker, with a new random salt.
+     * @param password the password in plain text.
+     * @return the hash to be stored, to be got from the Future.
+     */
+    public Future<String> hashAsync(String password) {
+        return submit(() -> hash(password));
+    }
+
+    /**
+     * Check a password against a stored password on a worker.
+     * @param password the password the user entered.
+     * @param stored the stored hash, or a plain text password saved by an older version.
+     * @return true iff the password is correct, to be got from the Future.
+     */
+    public Future<Boolean> verifyAsync(String password, String stored) {
+        return submit(() -> verify(password, stored));
+    }
+
+    /**
+     * Hash a password with a new random salt, on the thread that calls it.
+     * @param password the password in plain text.
+     * @return the hash to be stored.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Check a password against a stored password, on the thread that calls it. The hashes are compared in a time
+     * that does not depend on where they differ.
+     * @param password the password the user entered.
+     * @param stored the stored hash, or a plain text password saved by an older version.
+     * @return true iff the password is correct.
+     */
+    public boolean verify(String password, String stored) {
+        String[] parts = split(stored);
+        if (parts == null) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] expected = base64.decode(parts[2]);
+        return MessageDigest.isEqual(expected, pbkdf2(password, base64.decode(parts[1]),
+                Integer.parseInt(parts[0])));
+    }
+
+    /**
+     * Return true iff a stored password should be hashed again once the user enters it, because it is in plain
+     * text or is hashed with a cost other than iterations.
+     * @param stored the stored password.
+     * @return true iff it should be hashed again.
+     */
+    public boolean needsRehash(String stored) {
+        String[] parts = split(stored);
+        return parts == null || Integer.parseInt(parts[0]) != iterations;
+    }
+
+    /**
+     * Split a stored hash into its iterations, salt and hash.
+     * @param stored the stored password.
+     * @return the three parts, or null if stored is not a hash.
+     */
+    private String[] split(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            Integer.parseInt(parts[0]);
+            Base64.getDecoder().decode(parts[1]);
+            Base64.getDecoder().decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return parts;
+    }
+
+    /**
+     * Compute PBKDF2 of a password.
+     * @param password the password.
+     * @param salt the salt.
+     * @param iterations number of iterations.
+     * @return the hash.
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Submit a task to workers, and record the depth of the queue.
+     * @param task the task.
+     * @param <T> type of the result.
+     * @return the result, to be got from the Future.
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        Future<T> future = workers.submit(task);
+        maxQueueDepth.accumulateAndGet(workers.getQueue().size(), Math::max);
+        return future;
+    }
+}
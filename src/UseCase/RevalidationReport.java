@@ -0,0 +1,113 @@
+package UseCase;
+
+import Entity.ScheduledEvent;
+
+import java.util.*;
+
+/**
+ * A class that keeps the result of checking the schedules of a template against its limits again, after the limits
+ * are changed, which is made by ScheduleManager.revalidateTemplate.
+ * Reports of parts of the schedules are made in parallel and merged into one.
+ * templateID: id of the template.
+ * scheduleCount: number of schedules that are checked.
+ * eventCount: number of times of events that are checked, including the occurrences of the events that repeat.
+ * events: each event that breaks the limits.
+ * reasons: the reason why each event breaks the limits.
+ */
+public class RevalidationReport {
+    private String templateID;
+    private int scheduleCount;
+    private int eventCount;
+    private List<ScheduledEvent> events;
+    private List<String> reasons;
+
+    /**
+     * constructs RevalidationReport with no schedules checked.
+     * @param templateID id of the template.
+     */
+    public RevalidationReport(String templateID) {
+        this.templateID = templateID;
+        events = new ArrayList<>();
+        reasons = new ArrayList<>();
+    }
+
+    /**
+     * Record that a schedule is checked.
+     * @param eventCount number of times of events in the schedule.
+     */
+    void addSchedule(int eventCount) {
+        scheduleCount++;
+        this.eventCount += eventCount;
+    }
+
+    /**
+     * Record that an event breaks the limits.
+     * @param event the event.
+     * @param reason the reason why it breaks the limits.
+     */
+    void addViolation(ScheduledEvent event, String reason) {
+        events.add(event);
+        reasons.add(reason);
+    }
+
+    /**
+     * Add the schedules and events of another report of the same template to this one.
+     * @param other the other report.
+     */
+    void merge(RevalidationReport other) {
+        scheduleCount += other.scheduleCount;
+        eventCount += other.eventCount;
+        events.addAll(other.events);
+        reasons.addAll(other.reasons);
+    }
+
+    /**
+     * Getter of templateID.
+     * @return id of the template.
+     */
+    public String getTemplateID() {
+        return templateID;
+    }
+
+    /**
+     * Getter of scheduleCount.
+     * @return number of schedules that are checked.
+     */
+    public int getScheduleCount() {
+        return scheduleCount;
+    }
+
+    /**
+     * Getter of eventCount.
+     * @return number of times of events that are checked.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Return the number of events that break the limits.
+     * @return number of events.
+     */
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Return the i-th event that breaks the limits.
+     * @param i index of the event.
+     * @return the event.
+     */
+    public ScheduledEvent getEvent(int i) {
+        return events.get(i);
+    }
+
+    /**
+     * Return the reason why the i-th event breaks the limits.
+     * @param i index of the event.
+     * @return the reason.
+     */
+    public String getReason(int i) {
+        return reasons.get(i);
+    }
+}
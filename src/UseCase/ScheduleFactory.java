@@ -5,9 +5,7 @@ import Entity.MonthlySchedule;
 import Entity.Schedule;
 import Entity.WeeklySchedule;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 
 /**
  * A class that is used to generate different types of schedules upon request.
@@ -27,6 +25,7 @@ public class ScheduleFactory {
      * @param author is the userId of the user who created this schedule.
      * @param status is the status of this schedule. Allowed status are 'public', 'private' and 'friend-only'.
      * @return the schedule generated according to the parameters.
+     * @throws ParseException when scheduleDate is in incorrect format.
      */
     public Schedule getSchedule(String type, String scheduleDate, String scheduleName, String author, String status) throws ParseException {
 
@@ -35,21 +34,15 @@ public class ScheduleFactory {
         }
 
         if(type.equalsIgnoreCase("DailyTemplate")){
-            String dateFormat = "yyyy MM dd";
-            isDateValid(scheduleDate, dateFormat);
-            return new DailySchedule(scheduleName, scheduleDate, author, status);
+            return isDateValid(new DailySchedule(scheduleName, scheduleDate, author, status));
         }
 
         else if(type.equalsIgnoreCase("MonthlyTemplate")){
-            String dateFormat = "yyyy MM";
-            isDateValid(scheduleDate, dateFormat);
-            return new MonthlySchedule(scheduleName, scheduleDate, author, status);
+            return isDateValid(new MonthlySchedule(scheduleName, scheduleDate, author, status));
         }
 
         else if(type.equalsIgnoreCase("WeeklyTemplate")){
-            String dateFormat = "yyyy MM dd";
-            isDateValid(scheduleDate, dateFormat);
-            return new WeeklySchedule(scheduleName, scheduleDate, author, status);
+            return isDateValid(new WeeklySchedule(scheduleName, scheduleDate, author, status));
 
         } else {
             System.out.println ("A " + type.toLowerCase() + " is an undefined template for this program.");
@@ -58,15 +51,15 @@ public class ScheduleFactory {
     }
 
     /**
-     * Checks if the user input date or time format is correct, if not throw ParseException.
-     * @param date user input date or time.
-     * @param dateFormat correct date format.
-     * @throws ParseException when the time format is incorrect.
+     * Checks if the schedule date of s is in the correct format for its type, if not throw ParseException.
+     * The parsed date is cached in s, so it is not parsed again when events are added.
+     * @param s the new schedule.
+     * @return s
+     * @throws ParseException when the date format is incorrect.
      */
-    private void isDateValid(String date, String dateFormat) throws ParseException {
-        DateFormat df = new SimpleDateFormat(dateFormat);
-        df.setLenient(false);
-        df.parse(date);
+    private Schedule isDateValid(Schedule s) throws ParseException {
+        s.getBaseDate();
+        return s;
     }
 }
 
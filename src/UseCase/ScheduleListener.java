@@ -0,0 +1,62 @@
+package UseCase;
+
+import Entity.EventTime;
+import Entity.RecurrenceRule;
+import Entity.Schedule;
+
+/**
+ * An interface for the observers of ScheduleManager. ScheduleManager calls its listeners after each change it makes
+ * to schedules, so that the changes can be saved one by one instead of saving every schedule again.
+ */
+public interface ScheduleListener {
+    /**
+     * Called when a schedule is created, or a deleted schedule is recovered.
+     * @param s the schedule, with all of its events.
+     * @param templateId id of template that the schedule is created from.
+     */
+    void scheduleCreated(Schedule s, String templateId);
+
+    /**
+     * Called when a schedule is deleted.
+     * @param scheduleID schedule's id.
+     */
+    void scheduleDeleted(String scheduleID);
+
+    /**
+     * Called when a time of an event is added to a schedule.
+     * @param scheduleID schedule's id.
+     * @param eventName event name.
+     * @param time start and end time.
+     */
+    void eventAdded(String scheduleID, String eventName, EventTime time);
+
+    /**
+     * Called when a time of an event is deleted from a schedule.
+     * @param scheduleID schedule's id.
+     * @param eventName event name.
+     * @param time start and end time.
+     */
+    void eventDeleted(String scheduleID, String eventName, EventTime time);
+
+    /**
+     * Called when the status of a schedule is changed.
+     * @param scheduleID schedule's id.
+     * @param status new status.
+     */
+    void statusChanged(String scheduleID, String status);
+
+    /**
+     * Called when an event of a schedule is made to repeat.
+     * @param scheduleID schedule's id.
+     * @param eventName event name.
+     * @param rule how the event repeats.
+     */
+    void recurrenceAdded(String scheduleID, String eventName, RecurrenceRule rule);
+
+    /**
+     * Called when an event of a schedule stops repeating.
+     * @param scheduleID schedule's id.
+     * @param eventName event name.
+     */
+    void recurrenceRemoved(String scheduleID, String eventName);
+}
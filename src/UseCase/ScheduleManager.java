@@ -2,65 +2,229 @@ package UseCase;
 
 import Entity.*;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A class which is used to edit schedule and edit events in schedule.
  * Can be created by the constructor immediately with the given HashMap schedulesList and scheduleTempMap.
  * schedulesList: HashMap that map userID to the list of schedules they created.
  * scheduleTempMap: HashMap that map ScheduleID to template name.
- * schedulesFriend: HashMap that map userID to the list of schedules their friends shared with them.
+ * templateToIds: HashMap that map each template id to the IDs of the schedules made from it, an index over
+ * scheduleTempMap that is changed together with it.
+ * idToSchedule: HashMap that map scheduleID to the schedule, an index over schedulesList.
+ * scheduleOwner: HashMap that map scheduleID to the userID of the author, an index over schedulesList.
+ * statusToIds: HashMap that map each status to the IDs of the schedules in that status, in the order they got it,
+ * an index over schedulesList.
+ * friendOnlyIds: HashMap that map userID to the IDs of the friend-only schedules they created, an index over
+ * schedulesList. The schedules shared with a user are the friend-only schedules of the user's friends.
+ * dayToEvents: TreeMap that map each day, counted in days of DAY milliseconds since epoch, to the times of events of
+ * all schedules that are on that day, in a LinkedHashSet so that an event is removed in O(1). An event that lasts
+ * over several days is in the set of each of them. It is an
+ * index over the events of every schedule, which is built by the first query that needs it. The occurrences of events
+ * that repeat are not in it.
+ * recurringIds: IDs of the schedules that have an event that repeats, an index over schedulesList. The occurrences
+ * of their events are computed for the time range of each query.
  * factory: used to generate different types of schedules upon request
+ * listeners: observers that are told about every change to the schedules.
  */
 public class ScheduleManager {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int REVALIDATION_BATCH = 32;
     private HashMap<String, List<Schedule>> schedulesList;
     private HashMap<String, String> scheduleTempMap;
-    private HashMap<String, List<Schedule>> schedulesFriend;
+    private HashMap<String, LinkedHashSet<String>> templateToIds;
+    private HashMap<String, Schedule> idToSchedule;
+    private HashMap<String, String> scheduleOwner;
+    private HashMap<String, LinkedHashSet<String>> statusToIds;
+    private HashMap<String, LinkedHashSet<String>> friendOnlyIds;
+    private TreeMap<Long, Set<ScheduledEvent>> dayToEvents;
+    private HashSet<String> recurringIds;
     private ScheduleFactory factory;
+    private List<ScheduleListener> listeners;
 
     /**
-     * constructs ScheduleManager with schedulesList, scheduleTempMap, schedulesFriend and factory.
+     * constructs ScheduleManager with schedulesList, scheduleTempMap, the schedule indexes, factory
+     * and no listeners.
      */
     public ScheduleManager(){
         schedulesList = new HashMap<>();
         scheduleTempMap = new HashMap<>();
-        schedulesFriend = new HashMap<>();
+        templateToIds = new HashMap<>();
+        idToSchedule = new HashMap<>();
+        scheduleOwner = new HashMap<>();
+        statusToIds = new HashMap<>();
+        friendOnlyIds = new HashMap<>();
+        recurringIds = new HashSet<>();
         this.factory = new ScheduleFactory();
+        listeners = new ArrayList<>();
     }
 
     /**
-     * Setter for schedulesList
+     * Add a listener that is told about every later change to the schedules.
+     * @param listener the listener.
+     */
+    public void addListener(ScheduleListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Setter for schedulesList, rebuilds idToSchedule, scheduleOwner, statusToIds and friendOnlyIds from the new
+     * schedulesList. dayToEvents is built again by the next query that needs it.
+     * The times that the saved events had more than once, which are kept once, are reported.
      * @param schedulesList new one to set
      */
     public void setSchedulesList(HashMap<String, List<Schedule>> schedulesList) {
         this.schedulesList = schedulesList;
+        rebuildScheduleIndex();
+        int merged = 0;
+        for (Schedule s : idToSchedule.values()) {
+            merged += s.getMergedEventTimes();
+        }
+        if (merged > 0) {
+            System.out.println(merged + " times that saved events had more than once are kept only once.");
+        }
+    }
+
+    /**
+     * Rebuild idToSchedule, scheduleOwner, statusToIds and friendOnlyIds from schedulesList.
+     */
+    private void rebuildScheduleIndex() {
+        idToSchedule = new HashMap<>();
+        scheduleOwner = new HashMap<>();
+        statusToIds = new HashMap<>();
+        friendOnlyIds = new HashMap<>();
+        dayToEvents = null;
+        recurringIds = new HashSet<>();
+        for (Map.Entry<String, List<Schedule>> entry : schedulesList.entrySet()) {
+            for (Schedule s : entry.getValue()) {
+                idToSchedule.put(s.getScheduleID(), s);
+                scheduleOwner.put(s.getScheduleID(), entry.getKey());
+                indexStatus(s.getScheduleID(), entry.getKey(), s.getStatus());
+                if (!s.getRecurrences().isEmpty()) {
+                    recurringIds.add(s.getScheduleID());
+                }
+            }
+        }
+    }
+
+    /**
+     * Add scheduleID to the IDs of schedules in status in statusToIds, and to the friend-only schedules of owner in
+     * friendOnlyIds if status is friend-only.
+     * @param scheduleID schedule's id.
+     * @param owner id of the user who created the schedule.
+     * @param status schedule's status.
+     */
+    private void indexStatus(String scheduleID, String owner, String status) {
+        if (!statusToIds.containsKey(status)) {
+            statusToIds.put(status, new LinkedHashSet<>());
+        }
+        statusToIds.get(status).add(scheduleID);
+        if (status.equals("friend-only")) {
+            if (!friendOnlyIds.containsKey(owner)) {
+                friendOnlyIds.put(owner, new LinkedHashSet<>());
+            }
+            friendOnlyIds.get(owner).add(scheduleID);
+        }
     }
 
     /**
-     * Setter for sceduleTempMap
+     * Remove scheduleID from the IDs of schedules in status in statusToIds, and from the friend-only schedules of
+     * owner in friendOnlyIds.
+     * @param scheduleID schedule's id.
+     * @param owner id of the user who created the schedule.
+     * @param status schedule's status.
+     */
+    private void unindexStatus(String scheduleID, String owner, String status) {
+        if (statusToIds.containsKey(status)) {
+            statusToIds.get(status).remove(scheduleID);
+        }
+        if (friendOnlyIds.containsKey(owner)) {
+            friendOnlyIds.get(owner).remove(scheduleID);
+        }
+    }
+
+    /**
+     * Add schedule s to schedulesList under author, and to the schedule indexes.
+     * @param author user's id.
+     * @param s schedule to be added.
+     */
+    private void addToSchedulesList(String author, Schedule s) {
+        if (schedulesList.containsKey(author)){
+            schedulesList.get(author).add(s);
+        }
+        else{
+            List<Schedule> newList = new ArrayList<>();
+            newList.add(s);
+            schedulesList.put(author, newList);
+        }
+        idToSchedule.put(s.getScheduleID(), s);
+        scheduleOwner.put(s.getScheduleID(), author);
+        indexStatus(s.getScheduleID(), author, s.getStatus());
+        indexEvents(s, true);
+        if (!s.getRecurrences().isEmpty()) {
+            recurringIds.add(s.getScheduleID());
+        }
+    }
+
+    /**
+     * Setter for sceduleTempMap, rebuilds templateToIds from the new scheduleTempMap.
      * @param scheduleTempMap new one to set
      */
     public void setScheduleTempMap(HashMap<String, String> scheduleTempMap) {
         this.scheduleTempMap = scheduleTempMap;
+        templateToIds = new HashMap<>();
+        for (Map.Entry<String, String> entry : scheduleTempMap.entrySet()) {
+            templateToIds.computeIfAbsent(entry.getValue(), k -> new LinkedHashSet<>()).add(entry.getKey());
+        }
+    }
+
+    /**
+     * Map a schedule to the template it is made from, in scheduleTempMap and templateToIds.
+     * @param scheduleID schedule's id.
+     * @param templateId template's id.
+     */
+    private void putScheduleTemplate(String scheduleID, String templateId) {
+        removeScheduleTemplate(scheduleID);
+        scheduleTempMap.put(scheduleID, templateId);
+        templateToIds.computeIfAbsent(templateId, k -> new LinkedHashSet<>()).add(scheduleID);
     }
 
     /**
-     * Setter for schedulesFriend
-     * @param schedulesFriend new one to set
+     * Remove a schedule from scheduleTempMap and templateToIds.
+     * @param scheduleID schedule's id.
+     */
+    private void removeScheduleTemplate(String scheduleID) {
+        String templateId = scheduleTempMap.remove(scheduleID);
+        if (templateId != null && templateToIds.containsKey(templateId)) {
+            Set<String> ids = templateToIds.get(templateId);
+            ids.remove(scheduleID);
+            if (ids.isEmpty()) {
+                templateToIds.remove(templateId);
+            }
+        }
+    }
+
+    /**
+     * Return the IDs of the schedules made from a template.
+     * @param templateId template's id.
+     * @return IDs of the schedules in the order they are made, which can not be modified.
      */
-    public void setSchedulesFriend(HashMap<String, List<Schedule>> schedulesFriend) {
-        this.schedulesFriend = schedulesFriend;
+    public Set<String> getTemplateScheduleIds(String templateId) {
+        Set<String> ids = templateToIds.get(templateId);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
     }
 
     /**
-     * Getter for schedulesFriend
-     * @return current one
+     * Return the number of schedules made from a template.
+     * @param templateId template's id.
+     * @return number of schedules, 0 if the template is not used and can be removed.
      */
-    public HashMap<String, List<Schedule>> getSchedulesFriend() {
-        return schedulesFriend;
+    public int getTemplateUsage(String templateId) {
+        Set<String> ids = templateToIds.get(templateId);
+        return ids == null ? 0 : ids.size();
     }
 
     /**
@@ -86,16 +250,33 @@ public class ScheduleManager {
      * @return return true if delete successfully, false otherwise.
      */
     public boolean deleteSchedule(String scheduleID){
-        for (List<Schedule> slist : schedulesList.values()){
-            for (Schedule s : slist) {
-                if (s.getScheduleID().equals(scheduleID)) {
-                    slist.remove(s);
-                    scheduleTempMap.remove(s.getScheduleID());
-                    return true;
-                }
-            }
+        Schedule s = idToSchedule.remove(scheduleID);
+        if (s == null) {
+            return false;
+        }
+        String owner = scheduleOwner.remove(scheduleID);
+        unindexStatus(scheduleID, owner, s.getStatus());
+        indexEvents(s, false);
+        recurringIds.remove(scheduleID);
+        schedulesList.get(owner).remove(s);
+        removeScheduleTemplate(scheduleID);
+        for (ScheduleListener listener : listeners) {
+            listener.scheduleDeleted(scheduleID);
+        }
+        return true;
+    }
+
+    /**
+     * Put a previously deleted schedule back into schedulesList, with its template id.
+     * @param s the deleted schedule.
+     * @param templateId id of template that the schedule was created from.
+     */
+    public void recoverSchedule(Schedule s, String templateId) {
+        addToSchedulesList(s.getAuthor(), s);
+        putScheduleTemplate(s.getScheduleID(), templateId);
+        for (ScheduleListener listener : listeners) {
+            listener.scheduleCreated(s, templateId);
         }
-        return false;
     }
 
     /**
@@ -105,15 +286,21 @@ public class ScheduleManager {
      */
     public void changeStatus(String scheduleID, String status) throws SameStatusException {
         try {
-            changeStatusHelper(getScheduleByID(scheduleID), status);
-            getScheduleByID(scheduleID).setStatus(status);
+            Schedule s = getScheduleByID(scheduleID);
+            changeStatusHelper(s, status);
+            s.setStatus(status);
+            indexStatus(scheduleID, scheduleOwner.get(scheduleID), status);
+            for (ScheduleListener listener : listeners) {
+                listener.statusChanged(scheduleID, status);
+            }
         } catch (ScheduleNotFoundException e) {
             System.out.println(e.getMessage());
         }
     }
 
     /**
-     * helper of changeStatus
+     * helper of changeStatus, removes s from the indexes of its current status, which also stops sharing it with
+     * friends if it is friend-only.
      * @param s schedule
      * @param status new status
      * @throws SameStatusException when new and current statuses are same
@@ -122,11 +309,7 @@ public class ScheduleManager {
         if (s.getStatus().equals(status)) {
             throw new SameStatusException("The schedule is already in the status you want to change to.");
         }
-        if (s.getStatus().equals("friend-only")) {
-            for (List<Schedule> slist1 : schedulesFriend.values()) {
-                slist1.remove(s);
-            }
-        }
+        unindexStatus(s.getScheduleID(), scheduleOwner.get(s.getScheduleID()), s.getStatus());
     }
 
     /**
@@ -136,6 +319,7 @@ public class ScheduleManager {
      * @param startTimeString start time of event, in format of (dd HH:mm) for MonthlySchedule, (HH:mm) for DailySchedule, (MM dd HH:mm) for Weekly Schedule.
      * @param endTimeString end time of event, in format of (dd HH:mm) for MonthlySchedule, (HH:mm) for DailySchedule, (MM dd HH:mm) for Weekly Schedule.
      * @param t TemplateManager
+     * @return true if the time is added, false if the event already has this time.
      * @throws ParseException when start time and end time not in correct format
      * @throws TemplateNotFoundException which is threw from helper validEvent.
      * @throws BetweenException when Between time is too short.
@@ -143,27 +327,14 @@ public class ScheduleManager {
      * @throws StartEndException when the start time is after end time.
      * @throws ScheduleNotFoundException when the given scheduleID is not valid.
      */
-    public void addEvent(String scheduleID, String eventName, String startTimeString, String endTimeString, TemplateManager t)
+    public boolean addEvent(String scheduleID, String eventName, String startTimeString, String endTimeString, TemplateManager t)
             throws ParseException, TemplateNotFoundException, BetweenException, DurationException, StartEndException, ScheduleNotFoundException {
         Schedule s = getScheduleByID(scheduleID);
-        List<Date> DateList = new ArrayList<>();
-        if (!(s.getType().equals("Weekly"))){
-            if (s.checkDateFormat(startTimeString, endTimeString)){
-            DateList.add(isDateValid(getScheduleByID(scheduleID).getScheduleDate() + " " + startTimeString, "yyyy MM dd HH:mm"));
-            DateList.add(isDateValid(getScheduleByID(scheduleID).getScheduleDate() + " " + endTimeString, "yyyy MM dd HH:mm"));
-        } }else{
-            if (s.checkDateFormat(startTimeString, endTimeString)){
-                String[] splited = s.getScheduleDate().split(" ");
-                String year = splited[0];
-                DateList.add(isDateValid(year+ " " + startTimeString, "yyyy MM dd HH:mm"));
-                DateList.add(isDateValid(year+ " " + endTimeString, "yyyy MM dd HH:mm"));
-            }else {
-                throw new StartEndException("The start time or the end time is not within the week of this schedule!");
-            }
-        }
-        if (validEvent(s, t, DateList.get(0), DateList.get(1))){
-            addValidEvent(DateList, s, eventName);
+        EventTime time = s.parseEventTime(startTimeString, endTimeString);
+        if (!s.isWithinSchedule(time)){
+            throw new StartEndException("The start time or the end time is not within the date range of this schedule!");
         }
+        return validEvent(s, t, time) && addValidEvent(time, s, eventName);
     }
 
     /**
@@ -171,18 +342,28 @@ public class ScheduleManager {
      * @param DateList a list that contain valid start and end time of the event.
      * @param s Schedule that the new event should be added on.
      * @param eventName event's name of the new event.
+     * @return true if the time is added, false if the event already has this time.
      */
-    public void addValidEvent(List<Date> DateList, Schedule s, String eventName){
-        HashMap<String, List<List<Date>>> events = s.getEvents();
-        if (events.containsKey(eventName)){
-            events.get(eventName).add(DateList);
+    public boolean addValidEvent(List<Date> DateList, Schedule s, String eventName){
+        return addValidEvent(new EventTime(DateList.get(0), DateList.get(1)), s, eventName);
+    }
+
+    /**
+     * add a valid event to a given schedule. Nothing is done if the event already has this time.
+     * @param time valid start and end time of the event.
+     * @param s Schedule that the new event should be added on.
+     * @param eventName event's name of the new event.
+     * @return true if the time is added, false if the event already has this time.
+     */
+    public boolean addValidEvent(EventTime time, Schedule s, String eventName){
+        if (!s.addEventTime(eventName, time)) {
+            return false;
         }
-        else{
-            List<List<Date>> StartEnd = new ArrayList<>();
-            StartEnd.add(DateList);
-            events.put(eventName, StartEnd);
+        indexEvent(new ScheduledEvent(s.getScheduleID(), eventName, time), true);
+        for (ScheduleListener listener : listeners) {
+            listener.eventAdded(s.getScheduleID(), eventName, time);
         }
-        s.setEvents(events);
+        return true;
     }
 
     /**
@@ -199,50 +380,186 @@ public class ScheduleManager {
      */
     public boolean validEvent(Schedule s, TemplateManager t, Date start, Date end) throws TemplateNotFoundException,
             StartEndException, DurationException, BetweenException {
+        return validEvent(s, t, new EventTime(start, end));
+    }
+
+    /**
+     * check whether the the given time is valid for a event that can be added to the given schedule.
+     * @param s Schedule.
+     * @param t TemplateManager.
+     * @param time start and end time.
+     * @return true if the time is valid, but never returns false.
+     * @throws TemplateNotFoundException when there is no matching template with the schedule.
+     * @throws StartEndException when the start time is after end time.
+     * @throws DurationException when duration is too short or too long.
+     * @throws BetweenException when Between time is too short.
+     */
+    public boolean validEvent(Schedule s, TemplateManager t, EventTime time) throws TemplateNotFoundException,
+            StartEndException, DurationException, BetweenException {
         Template temp = t.getTemplateById(scheduleTempMap.get(s.getScheduleID()));
-        if (start.after(end)) {
+        if (time.getStart() > time.getEnd()) {
             throw new StartEndException("Error: The start time is after the end time.");
         }
-        validDuration(start, end, temp.getMinTimeOfEvent(), temp.getMaxTimeOfEvent());
+        validDuration(time, temp.getMinTimeOfEvent(), temp.getMaxTimeOfEvent());
         if (temp.getMinTimeBtwEvents() == -1) {
             return true;
         }
-        validBetweenTime(s, start, end, temp);
+        validBetweenTime(s, time, temp);
         return true;
     }
 
     /**
      * check if start and end has valid between time based on template given.
+     * Only the event that starts next after start, and the events that start close enough before start to still be
+     * within the between time, are checked.
      * @param s Schedule, event of start and end is going to be added to.
-     * @param start start time of event.
-     * @param end end time of event.
+     * @param time start and end time of event.
      * @param temp Template that with limitation of the event.
      * @throws BetweenException when Between time is too short.
      */
-    private void validBetweenTime(Schedule s, Date start, Date end, Template temp) throws BetweenException {
-        Collection<List<List<Date>>> all_time = s.getEvents().values();
-        for (List<List<Date>> event_time_list : all_time) {
-            for (List<Date> event_time : event_time_list) {
-                if (event_time.get(0).after(start) && temp.getMinTimeBtwEvents() > event_time.get(0).getTime() - end.getTime()) {
-                    throw new BetweenException("Error: Between time is too short, move event forward.");
-                }
-                if (start.after(event_time.get(0)) && temp.getMinTimeBtwEvents() > start.getTime() - event_time.get(1).getTime()) {
-                    throw new BetweenException("Error: Between time is too short, move event afterward.");
-                }
+    private void validBetweenTime(Schedule s, EventTime time, Template temp) throws BetweenException {
+        EventTime next = s.getNextEventTime(time.getStart());
+        if (next != null && tooClose(temp, time.getEnd(), next.getStart())) {
+            throw new BetweenException("Error: Between time is too short, move event forward.");
+        }
+        long from = time.getStart() - (long) Math.ceil(temp.getMinTimeBtwEvents()) - s.getMaxEventLength();
+        for (EventTime event_time : s.getEventTimesStartingBetween(from, time.getStart())) {
+            if (tooClose(temp, event_time.getEnd(), time.getStart())) {
+                throw new BetweenException("Error: Between time is too short, move event afterward.");
             }
         }
     }
 
+    /**
+     * check if the time between the end of an event and the start of a later event is shorter than the template
+     * allows.
+     * @param temp Template that with limitation of the event.
+     * @param end end time of the earlier event.
+     * @param start start time of the later event.
+     * @return true if the between time is too short.
+     */
+    private static boolean tooClose(Template temp, long end, long start) {
+        return temp.getMinTimeBtwEvents() > start - end;
+    }
+
+    /**
+     * Add the events read from a file to a schedule. They are checked against the schedule and its template like
+     * addEvent does, but in one pass: the events are sorted by start time once, and the latest end of the events
+     * before each one is carried along, instead of looking up the events around every event again.
+     * An event that is not valid is not added, and the reason is recorded as the error of its line in events.
+     * The events that repeat are checked by validRecurrence one at a time after that, against all events added
+     * before them, and are added unless the event already repeats in the schedule.
+     * @param scheduleID schedule's id.
+     * @param events the events read from a file.
+     * @param t TemplateManager.
+     * @return number of events and events that repeat that are added.
+     * @throws ScheduleNotFoundException when the given scheduleID is not valid.
+     * @throws TemplateNotFoundException when there is no matching template with the schedule.
+     */
+    public int importEvents(String scheduleID, EventImport events, TemplateManager t)
+            throws ScheduleNotFoundException, TemplateNotFoundException {
+        Schedule s = getScheduleByID(scheduleID);
+        Template temp = t.getTemplateById(scheduleTempMap.get(scheduleID));
+        Integer[] order = new Integer[events.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> events.getTime(i).getStart()));
+        Iterator<EventTime> existing = s.getEventTimesStartingBetween(Long.MIN_VALUE, Long.MAX_VALUE).iterator();
+        EventTime nextExisting = existing.hasNext() ? existing.next() : null;
+        // latest end of the events that start before the event being checked, which are the only ones it is
+        // checked against, like in validBetweenTime
+        long endBefore = Long.MIN_VALUE;
+        long sameStart = Long.MIN_VALUE;
+        long sameStartEnd = Long.MIN_VALUE;
+        List<Integer> valid = new ArrayList<>();
+        for (int i : order) {
+            EventTime time = events.getTime(i);
+            while (nextExisting != null && nextExisting.getStart() < time.getStart()) {
+                endBefore = Math.max(endBefore, nextExisting.getEnd());
+                nextExisting = existing.hasNext() ? existing.next() : null;
+            }
+            if (sameStart < time.getStart()) {
+                endBefore = Math.max(endBefore, sameStartEnd);
+                sameStart = time.getStart();
+                sameStartEnd = Long.MIN_VALUE;
+            }
+            try {
+                validImportedEvent(s, temp, time, endBefore);
+                valid.add(i);
+                sameStartEnd = Math.max(sameStartEnd, time.getEnd());
+            } catch (ParseException | StartEndException | DurationException | BetweenException e) {
+                events.addError(events.getLine(i), e.getMessage());
+            }
+        }
+        int added = 0;
+        for (int i : valid) {
+            if (addValidEvent(events.getTime(i), s, events.getName(i))) {
+                added++;
+            } else {
+                events.addError(events.getLine(i), "Error: The event already has this time.");
+            }
+        }
+        for (int i = 0; i < events.ruleCount(); i++) {
+            if (s.getRecurrences().containsKey(events.getRuleName(i))) {
+                events.addError(events.getRuleLine(i), "Error: This event already repeats in the schedule.");
+                continue;
+            }
+            try {
+                validRecurrence(s, t, events.getRule(i));
+                addValidRecurrence(s, events.getRuleName(i), events.getRule(i));
+                added++;
+            } catch (ParseException | StartEndException | DurationException | BetweenException e) {
+                events.addError(events.getRuleLine(i), e.getMessage());
+            }
+        }
+        events.setAdded(added);
+        return added;
+    }
+
+    /**
+     * check whether an imported event can be added to the given schedule, like addEvent and validEvent do.
+     * The event is checked against the event of the schedule that starts next after it, and against endBefore.
+     * @param s Schedule.
+     * @param temp Template of the schedule.
+     * @param time start and end time of the event.
+     * @param endBefore latest end time of the events that start before the event, or Long.MIN_VALUE if there is
+     *                  none.
+     * @throws ParseException when the date of the schedule is in incorrect format.
+     * @throws StartEndException when the event is not within the schedule, or the start time is after end time.
+     * @throws DurationException when duration is too short or too long.
+     * @throws BetweenException when Between time is too short.
+     */
+    private void validImportedEvent(Schedule s, Template temp, EventTime time, long endBefore)
+            throws ParseException, StartEndException, DurationException, BetweenException {
+        if (!s.isWithinSchedule(time)){
+            throw new StartEndException("The start time or the end time is not within the date range of this schedule!");
+        }
+        if (time.getStart() > time.getEnd()) {
+            throw new StartEndException("Error: The start time is after the end time.");
+        }
+        validDuration(time, temp.getMinTimeOfEvent(), temp.getMaxTimeOfEvent());
+        if (temp.getMinTimeBtwEvents() == -1) {
+            return;
+        }
+        EventTime next = s.getNextEventTime(time.getStart());
+        if (next != null && tooClose(temp, time.getEnd(), next.getStart())) {
+            throw new BetweenException("Error: Between time is too short, move event forward.");
+        }
+        if (endBefore != Long.MIN_VALUE && tooClose(temp, endBefore, time.getStart())) {
+            throw new BetweenException("Error: Between time is too short, move event afterward.");
+        }
+    }
+
     /**
      * check if min <= duration <= max.
-     * @param start start time of event.
-     * @param end end time of event.
+     * @param time start and end time of event.
      * @param min minimum duration of events.
      * @param max maximum duration of events.
      * @throws DurationException when duration is too short or too long.
      */
-    private void validDuration(Date start, Date end, double min, double max) throws DurationException {
-        double diff = (end.getTime() - start.getTime());
+    private static void validDuration(EventTime time, double min, double max) throws DurationException {
+        double diff = time.getLength();
         double denominator = (60 * 60 * 1000);
         double duration = diff / denominator;
         if (duration < min) {
@@ -252,6 +569,129 @@ public class ScheduleManager {
         }
     }
 
+    /**
+     * make an event of a given schedule repeat, throw exception when fails.
+     * @param scheduleID schedule's id.
+     * @param eventName name of event that is going to repeat.
+     * @param startTimeString start time of the first occurrence, in the same format as for addEvent.
+     * @param endTimeString end time of the first occurrence, in the same format as for addEvent.
+     * @param frequency either daily, weekly or monthly.
+     * @param count the number of occurrences, or 0 if it repeats until untilString.
+     * @param untilString the latest start time of an occurrence in the same format as startTimeString, or null if it
+     *                    repeats count times.
+     * @param t TemplateManager
+     * @return true if the event repeats now, false if it already repeats.
+     * @throws ParseException when the times are not in correct format.
+     * @throws TemplateNotFoundException which is threw from helper validRecurrence.
+     * @throws BetweenException when Between time is too short.
+     * @throws DurationException when duration is too short or too long.
+     * @throws StartEndException when the start time is after end time, an occurrence is not within the schedule, or
+     * neither count nor untilString is given.
+     * @throws ScheduleNotFoundException when the given scheduleID is not valid.
+     */
+    public boolean addRecurringEvent(String scheduleID, String eventName, String startTimeString, String endTimeString,
+                                     String frequency, int count, String untilString, TemplateManager t)
+            throws ParseException, TemplateNotFoundException, BetweenException, DurationException, StartEndException,
+            ScheduleNotFoundException {
+        Schedule s = getScheduleByID(scheduleID);
+        if (s.getRecurrences().containsKey(eventName)) {
+            return false;
+        }
+        long until = untilString == null ? Long.MAX_VALUE : s.parseEventTime(untilString, untilString).getStart();
+        RecurrenceRule rule = new RecurrenceRule(s.parseEventTime(startTimeString, endTimeString), frequency, count,
+                until);
+        validRecurrence(s, t, rule);
+        addValidRecurrence(s, eventName, rule);
+        return true;
+    }
+
+    /**
+     * check whether the given rule is valid for an event that repeats in the given schedule. Every occurrence has to
+     * be within the date range of the schedule, the date of a daily schedule, the week of a weekly schedule or the
+     * month of a monthly schedule, which is checked for all occurrences first. Then every occurrence is checked like
+     * an event added by addEvent, against the events and the occurrences of the other rules around it, which are
+     * computed only near the occurrence, and against the occurrence before it.
+     * @param s Schedule.
+     * @param t TemplateManager.
+     * @param rule how the event repeats.
+     * @throws TemplateNotFoundException when there is no matching template with the schedule.
+     * @throws StartEndException when the start time is after end time, an occurrence is not within the schedule, or
+     * the rule does not stop repeating.
+     * @throws DurationException when duration is too short or too long.
+     * @throws BetweenException when Between time is too short.
+     * @throws ParseException when the date of the schedule is in incorrect format.
+     */
+    public void validRecurrence(Schedule s, TemplateManager t, RecurrenceRule rule) throws TemplateNotFoundException,
+            StartEndException, DurationException, BetweenException, ParseException {
+        if (!rule.isBounded()) {
+            throw new StartEndException("Error: A repeating event needs a number of times or an end time.");
+        }
+        Template temp = t.getTemplateById(scheduleTempMap.get(s.getScheduleID()));
+        EventTime occurrence;
+        for (long k = 0; (occurrence = rule.getOccurrence(k)) != null; k++) {
+            if (!s.isWithinSchedule(occurrence)) {
+                throw new StartEndException("The start time or the end time is not within the date range of this schedule!");
+            }
+        }
+        EventTime previous = null;
+        for (long k = 0; (occurrence = rule.getOccurrence(k)) != null; k++) {
+            validEvent(s, t, occurrence);
+            if (previous != null && temp.getMinTimeBtwEvents() != -1
+                    && tooClose(temp, previous.getEnd(), occurrence.getStart())) {
+                throw new BetweenException("Error: Between time is too short, the event repeats too often.");
+            }
+            previous = occurrence;
+        }
+    }
+
+    /**
+     * make an event of a given schedule repeat by a valid rule.
+     * @param s Schedule that the event is in.
+     * @param eventName event's name.
+     * @param rule valid rule of how the event repeats.
+     */
+    public void addValidRecurrence(Schedule s, String eventName, RecurrenceRule rule) {
+        s.putRecurrence(eventName, rule);
+        if (idToSchedule.get(s.getScheduleID()) == s) {
+            recurringIds.add(s.getScheduleID());
+        }
+        for (ScheduleListener listener : listeners) {
+            listener.recurrenceAdded(s.getScheduleID(), eventName, rule);
+        }
+    }
+
+    /**
+     * stop an event of a given schedule from repeating. The times of the event that are added one by one are kept.
+     * @param scheduleID schedule's id.
+     * @param eventName event's name.
+     * @return true if the event stops repeating, false if it does not repeat.
+     * @throws ScheduleNotFoundException when the given scheduleID is not valid.
+     */
+    public boolean deleteRecurrence(String scheduleID, String eventName) throws ScheduleNotFoundException {
+        Schedule s = getScheduleByID(scheduleID);
+        if (s.removeRecurrence(eventName) == null) {
+            return false;
+        }
+        if (s.getRecurrences().isEmpty()) {
+            recurringIds.remove(scheduleID);
+        }
+        for (ScheduleListener listener : listeners) {
+            listener.recurrenceRemoved(scheduleID, eventName);
+        }
+        return true;
+    }
+
+    /**
+     * Return true iff the event with eventName in a given schedule repeats.
+     * @param scheduleID schedule's id.
+     * @param eventName event's name.
+     * @return true iff the event repeats.
+     * @throws ScheduleNotFoundException when the given scheduleID is not valid.
+     */
+    public boolean isRecurring(String scheduleID, String eventName) throws ScheduleNotFoundException {
+        return getScheduleByID(scheduleID).getRecurrences().containsKey(eventName);
+    }
+
     /**
      * delete event from given schedule, return true if delete successfully.
      * @param scheduleID schedule's id.
@@ -264,49 +704,75 @@ public class ScheduleManager {
      */
     public boolean deleteEvent (String scheduleID, String EventName, String startTimeString, String endTimeString) throws ParseException, ScheduleNotFoundException {
         Schedule s = getScheduleByID(scheduleID);
-        HashMap<String, List<List<Date>>> events = getScheduleByID(scheduleID).getEvents();
-        if (!(events.containsKey(EventName))){
+        if (!(s.hasEvent(EventName))){
             return false;
         }
-        s.checkDateFormat(startTimeString, endTimeString);
-        Date dateST;
-        Date dateET;
-        if (s.getType().equals("Weekly")){
-            String[] splited = s.getScheduleDate().split(" ");
-            String year = splited[0];
-            dateST = new SimpleDateFormat("yyyy MM dd HH:mm").parse(year + " " + startTimeString);
-            dateET = new SimpleDateFormat("yyyy MM dd HH:mm").parse(year + " " + endTimeString);
-        } else {
-            dateST = new SimpleDateFormat("yyyy MM dd HH:mm").parse(s.getScheduleDate() + " " + startTimeString);
-            dateET = new SimpleDateFormat("yyyy MM dd HH:mm").parse(s.getScheduleDate() + " " + endTimeString);
+        return deleteValidEvent(s.parseEventTime(startTimeString, endTimeString), EventName, s);
+    }
+
+    /**
+     * Return the event with the given id, which is its ScheduledEvent.getEventID. It is found in O(1), since the
+     * id is made of the schedule's id and the name and time of the event.
+     * @param eventID id of the event.
+     * @return the event, null if there is no event with this id.
+     */
+    public ScheduledEvent getEventByID(String eventID) {
+        ScheduledEvent event = ScheduledEvent.parseEventID(eventID);
+        if (event == null) {
+            return null;
+        }
+        Schedule s = idToSchedule.get(event.getScheduleID());
+        if (s == null || !s.hasEventTime(event.getEventName(), event.getTime())) {
+            return null;
         }
-        return deleteValidEvent(events.get(EventName), dateST, dateET, EventName, events, s);
+        return event;
+    }
+
+    /**
+     * delete the event with the given id, like deleteEvent, so that it can be recovered by recoverDeletedEvent.
+     * @param eventID id of the event.
+     * @return true if the event is successfully deleted, false if there is no event with this id.
+     */
+    public boolean deleteEventByID(String eventID) {
+        ScheduledEvent event = getEventByID(eventID);
+        if (event == null) {
+            return false;
+        }
+        return deleteValidEvent(event.getTime(), event.getEventName(), idToSchedule.get(event.getScheduleID()));
     }
 
     /**
      * delete event with valid start and end time. Return true if delete successfully, false otherwise.
-     * @param listOfDates lists of start and end time that has EventName.
-     * @param dateST start time of event.
-     * @param dateET end time of event.
+     * @param time start and end time of event.
      * @param EventName event name.
-     * @param events all events that schedule s currently have.
      * @param s schedule that the event should be deleted from.
      * @return true if deleted successfully. False otherwise.
      */
-    private boolean deleteValidEvent(List<List<Date>> listOfDates, Date dateST, Date dateET, String EventName,
-                                     HashMap<String, List<List<Date>>> events, Schedule s) throws ScheduleNotFoundException {
-        for (List<Date> time: listOfDates){
-            if (time.get(0).equals(dateST) && time.get(1).equals(dateET)){
-                addDeletedEvents(s.getScheduleID(), EventName, time);
-                listOfDates.remove(time);
-                if (listOfDates.isEmpty()){
-                    events.remove(EventName);
-                }
-                s.setEvents(events);
-                return true;
-            }
+    private boolean deleteValidEvent(EventTime time, String EventName, Schedule s) {
+        if (!removeValidEvent(time, EventName, s)){
+            return false;
+        }
+        s.putDeletedEventTime(EventName, time);
+        return true;
+    }
+
+    /**
+     * remove event with valid start and end time, without keeping it in deletedEvents so that it can not be
+     * recovered. Return true if removed successfully, false otherwise.
+     * @param time start and end time of event.
+     * @param EventName event name.
+     * @param s schedule that the event should be removed from.
+     * @return true if removed successfully. False otherwise.
+     */
+    public boolean removeValidEvent(EventTime time, String EventName, Schedule s) {
+        if (!s.removeEventTime(EventName, time)){
+            return false;
+        }
+        indexEvent(new ScheduledEvent(s.getScheduleID(), EventName, time), false);
+        for (ScheduleListener listener : listeners) {
+            listener.eventDeleted(s.getScheduleID(), EventName, time);
         }
-        return false;
+        return true;
     }
 
     /**
@@ -326,15 +792,11 @@ public class ScheduleManager {
         Template temp = t.getTemplateById(templateId);
         String type = temp.getTemplateType();
         Schedule s = factory.getSchedule(type, scheduleDate, scheduleName, author, status);
-        if (schedulesList.containsKey(author)){
-            schedulesList.get(author).add(s);
+        addToSchedulesList(author, s);
+        putScheduleTemplate(s.getScheduleID(), templateId);
+        for (ScheduleListener listener : listeners) {
+            listener.scheduleCreated(s, templateId);
         }
-        else{
-            List<Schedule> newList = new ArrayList<>();
-            newList.add(s);
-            schedulesList.put(author,newList);
-        }
-        scheduleTempMap.put(s.getScheduleID(), templateId);
         return s.getScheduleID();
     }
 
@@ -356,21 +818,382 @@ public class ScheduleManager {
     }
 
     /**
-     * Return a list that contain all schedules that are shared by friends
+     * Return a list that contain all schedules that are shared by friends, which are the friend-only schedules
+     * created by the user's friends.
      * @param userID user's id
+     * @param um UserManager
      * @return a list that contain all schedules that are shared by friends
      */
-    public List<Schedule> getAllFriendsSchedule(String userID){
+    public List<Schedule> getAllFriendsSchedule(String userID, UserManager um){
         List<Schedule> friend_schedule = new ArrayList<>();
-        if (!(schedulesFriend.containsKey(userID)) || schedulesFriend.get(userID).isEmpty()){
-            System.out.println("You don't have any friends-shared schedules.");
+        for (String friID : um.getFriendsId(userID)) {
+            if (friendOnlyIds.containsKey(friID)) {
+                for (String scheduleID : friendOnlyIds.get(friID)) {
+                    friend_schedule.add(idToSchedule.get(scheduleID));
+                }
+            }
         }
-        if (schedulesFriend.containsKey(userID)){
-            friend_schedule.addAll(schedulesFriend.get(userID));
+        if (friend_schedule.isEmpty()){
+            System.out.println("You don't have any friends-shared schedules.");
         }
         return friend_schedule;
     }
 
+    /**
+     * Return the events of all schedules that take place in [from, to), i.e. start before to and end after from.
+     * Only the days from from to to are looked at in dayToEvents, and only the occurrences in [from, to) are
+     * computed for the events that repeat.
+     * @param from start of the time range in milliseconds, inclusive.
+     * @param to end of the time range in milliseconds, exclusive.
+     * @return list of events sorted by start time.
+     */
+    public List<ScheduledEvent> getEventsBetween(long from, long to) {
+        List<ScheduledEvent> found = new ArrayList<>();
+        if (from >= to) {
+            return found;
+        }
+        long fromDay = Math.floorDiv(from, DAY);
+        for (Map.Entry<Long, Set<ScheduledEvent>> entry :
+                getDayToEvents().subMap(fromDay, true, Math.floorDiv(to - 1, DAY), true).entrySet()) {
+            for (ScheduledEvent event : entry.getValue()) {
+                EventTime time = event.getTime();
+                // an event over several days is only taken from the first of its days that is in the range
+                if (time.getStart() < to && Math.max(time.getEnd(), time.getStart() + 1) > from
+                        && entry.getKey() == Math.max(Math.floorDiv(time.getStart(), DAY), fromDay)) {
+                    found.add(event);
+                }
+            }
+        }
+        for (String scheduleID : recurringIds) {
+            for (Map.Entry<String, RecurrenceRule> entry : idToSchedule.get(scheduleID).getRecurrences().entrySet()) {
+                RecurrenceRule rule = entry.getValue();
+                for (EventTime time : rule.getOccurrencesStartingBetween(from - rule.getFirst().getLength(), to)) {
+                    if (Math.max(time.getEnd(), time.getStart() + 1) > from) {
+                        found.add(new ScheduledEvent(scheduleID, entry.getKey(), time));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(event -> event.getTime().getStart()));
+        return found;
+    }
+
+    /**
+     * Return the events in [from, to) of the schedules created by the given user.
+     * @param userID user's id.
+     * @param from start of the time range in milliseconds, inclusive.
+     * @param to end of the time range in milliseconds, exclusive.
+     * @return list of events sorted by start time.
+     */
+    public List<ScheduledEvent> getUserEventsBetween(String userID, long from, long to) {
+        List<ScheduledEvent> found = getEventsBetween(from, to);
+        found.removeIf(event -> !userID.equals(scheduleOwner.get(event.getScheduleID())));
+        return found;
+    }
+
+    /**
+     * Return the events in [from, to) of all public schedules.
+     * @param from start of the time range in milliseconds, inclusive.
+     * @param to end of the time range in milliseconds, exclusive.
+     * @return list of events sorted by start time.
+     */
+    public List<ScheduledEvent> getPublicEventsBetween(long from, long to) {
+        Set<String> publicIds = getScheduleIdsByStatus("public");
+        List<ScheduledEvent> found = getEventsBetween(from, to);
+        found.removeIf(event -> !publicIds.contains(event.getScheduleID()));
+        return found;
+    }
+
+    /**
+     * Return the events of the schedules created by the given user that are taking place at the given time.
+     * @param userID user's id.
+     * @param time a time in milliseconds.
+     * @return list of events sorted by start time.
+     */
+    public List<ScheduledEvent> getUserEventsAt(String userID, long time) {
+        return getUserEventsBetween(userID, time, time + 1);
+    }
+
+    /**
+     * Return dayToEvents, build it from the events of every schedule first if it has not been built.
+     * @return dayToEvents
+     */
+    private TreeMap<Long, Set<ScheduledEvent>> getDayToEvents() {
+        if (dayToEvents == null) {
+            dayToEvents = new TreeMap<>();
+            for (Schedule s : idToSchedule.values()) {
+                indexEvents(s, true);
+            }
+        }
+        return dayToEvents;
+    }
+
+    /**
+     * Add all events of a schedule to dayToEvents, or remove them from it.
+     * @param s schedule.
+     * @param add true to add the events, false to remove them.
+     */
+    private void indexEvents(Schedule s, boolean add) {
+        for (Map.Entry<String, List<EventTime>> entry : s.getEventTimes().entrySet()) {
+            for (EventTime time : entry.getValue()) {
+                indexEvent(new ScheduledEvent(s.getScheduleID(), entry.getKey(), time), add);
+            }
+        }
+    }
+
+    /**
+     * Add an event to the set of each of its days in dayToEvents, or remove it from them. Nothing is done before
+     * dayToEvents is built, since it is built from the schedules themselves.
+     * @param event the event.
+     * @param add true to add the event, false to remove it.
+     */
+    private void indexEvent(ScheduledEvent event, boolean add) {
+        if (dayToEvents == null) {
+            return;
+        }
+        EventTime time = event.getTime();
+        long lastDay = Math.floorDiv(Math.max(time.getEnd() - 1, time.getStart()), DAY);
+        for (long day = Math.floorDiv(time.getStart(), DAY); day <= lastDay; day++) {
+            if (add) {
+                dayToEvents.computeIfAbsent(day, k -> new LinkedHashSet<>()).add(event);
+            } else if (dayToEvents.containsKey(day)) {
+                Set<ScheduledEvent> events = dayToEvents.get(day);
+                events.remove(event);
+                if (events.isEmpty()) {
+                    dayToEvents.remove(day);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the times in [from, to) when at least one of the given users has an event in any of their schedules.
+     * Each schedule keeps its events sorted by start time, so the sorted events of all k schedules are merged with a
+     * k-way sweep over a priority queue, which takes O(n log k) for n events in the window. Events that overlap or
+     * touch each other are merged into one busy time.
+     * @param userIDs ids of the users.
+     * @param from start of the window in milliseconds, inclusive.
+     * @param to end of the window in milliseconds, exclusive.
+     * @return busy times sorted by start time, cut to the window, which do not overlap or touch each other.
+     */
+    public List<EventTime> getBusyTimes(Collection<String> userIDs, long from, long to) {
+        List<EventTime> busy = new ArrayList<>();
+        PriorityQueue<EventCursor> cursors = new PriorityQueue<>();
+        for (String userID : new HashSet<>(userIDs)) {
+            for (Schedule s : schedulesList.getOrDefault(userID, Collections.emptyList())) {
+                EventCursor cursor = new EventCursor(s.getEventTimesStartingBetween(from - s.getMaxEventLength(), to));
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+        long busyStart = from;
+        long busyEnd = from;
+        while (!cursors.isEmpty()) {
+            EventCursor cursor = cursors.poll();
+            long start = Math.max(cursor.current.getStart(), from);
+            long end = Math.min(cursor.current.getEnd(), to);
+            if (start > busyEnd) {
+                if (busyEnd > busyStart) {
+                    busy.add(new EventTime(busyStart, busyEnd));
+                }
+                busyStart = start;
+                busyEnd = end;
+            } else if (end > busyEnd) {
+                busyEnd = end;
+            }
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+        if (busyEnd > busyStart) {
+            busy.add(new EventTime(busyStart, busyEnd));
+        }
+        return busy;
+    }
+
+    /**
+     * Return the times in [from, to) when all of the given users are free, i.e. the gaps between the busy times
+     * given by getBusyTimes, that are at least minLength long.
+     * @param userIDs ids of the users.
+     * @param from start of the window in milliseconds, inclusive.
+     * @param to end of the window in milliseconds, exclusive.
+     * @param minLength the shortest free time that is returned, in milliseconds.
+     * @return free times sorted by start time.
+     */
+    public List<EventTime> getCommonFreeTimes(Collection<String> userIDs, long from, long to, long minLength) {
+        List<EventTime> free = new ArrayList<>();
+        long freeStart = from;
+        for (EventTime time : getBusyTimes(userIDs, from, to)) {
+            addFreeTime(free, freeStart, time.getStart(), minLength);
+            freeStart = time.getEnd();
+        }
+        addFreeTime(free, freeStart, to, minLength);
+        return free;
+    }
+
+    /**
+     * Add a free time to free if it is not empty and at least minLength long.
+     * @param free list of free times.
+     * @param start start of the free time in milliseconds.
+     * @param end end of the free time in milliseconds.
+     * @param minLength the shortest free time that is added, in milliseconds.
+     */
+    private void addFreeTime(List<EventTime> free, long start, long end, long minLength) {
+        if (end > start && end - start >= minLength) {
+            free.add(new EventTime(start, end));
+        }
+    }
+
+    /**
+     * A position in the event times of one schedule, sorted by start time, used by the sweep in getBusyTimes.
+     * Cursors are ordered by the start time of their current event time.
+     * times: the event times.
+     * index: index of the next event time.
+     * current: the event time the cursor is at.
+     */
+    private static class EventCursor implements Comparable<EventCursor> {
+        private final List<EventTime> times;
+        private int index;
+        private EventTime current;
+
+        private EventCursor(List<EventTime> times) {
+            this.times = times;
+        }
+
+        /**
+         * Move to the next event time.
+         * @return true if there is a next event time, false if every event time is passed.
+         */
+        private boolean next() {
+            if (index == times.size()) {
+                return false;
+            }
+            current = times.get(index++);
+            return true;
+        }
+
+        @Override
+        public int compareTo(EventCursor other) {
+            return Long.compare(current.getStart(), other.current.getStart());
+        }
+    }
+
+    /**
+     * Check the events of every schedule made from a template, which are found by templateToIds, against the limits of
+     * the template again, e.g. after an admin changed them. Every time of an event, and every occurrence of an event
+     * that repeats, is checked like addEvent checks a new event: its duration, and the time between it and the events
+     * that start before it.
+     * The schedules are split into batches of REVALIDATION_BATCH that are checked in parallel by fork/join, and each
+     * schedule is checked in one pass over its events sorted by start time. Nothing is changed.
+     * @param templateID id of the template.
+     * @param t TemplateManager.
+     * @return report of the events that break the limits, sorted by schedule id and start time.
+     * @throws TemplateNotFoundException when there is no template with templateID.
+     */
+    public RevalidationReport revalidateTemplate(String templateID, TemplateManager t)
+            throws TemplateNotFoundException {
+        Template temp = t.getTemplateById(templateID);
+        List<Schedule> schedules = new ArrayList<>();
+        for (String scheduleID : getTemplateScheduleIds(templateID)) {
+            if (idToSchedule.containsKey(scheduleID)) {
+                schedules.add(idToSchedule.get(scheduleID));
+            }
+        }
+        schedules.sort(Comparator.comparing(Schedule::getScheduleID));
+        return ForkJoinPool.commonPool().invoke(new RevalidationTask(templateID, temp, schedules, 0,
+                schedules.size()));
+    }
+
+    /**
+     * Check the events of one schedule against the limits of its template, and add them to report.
+     * @param s the schedule.
+     * @param temp template of the schedule.
+     * @param report where the events that break the limits are added.
+     */
+    private static void revalidateSchedule(Schedule s, Template temp, RevalidationReport report) {
+        List<ScheduledEvent> events = new ArrayList<>();
+        for (Map.Entry<String, List<EventTime>> entry : s.getEventTimes().entrySet()) {
+            for (EventTime time : entry.getValue()) {
+                events.add(new ScheduledEvent(s.getScheduleID(), entry.getKey(), time));
+            }
+        }
+        for (Map.Entry<String, RecurrenceRule> entry : s.getRecurrences().entrySet()) {
+            for (EventTime time : entry.getValue().getOccurrencesStartingBetween(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                events.add(new ScheduledEvent(s.getScheduleID(), entry.getKey(), time));
+            }
+        }
+        events.sort(Comparator.comparingLong(event -> event.getTime().getStart()));
+        // like in importEvents, an event is only checked against the events that start before it
+        long endBefore = Long.MIN_VALUE;
+        long lastStart = Long.MIN_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (ScheduledEvent event : events) {
+            EventTime time = event.getTime();
+            if (lastStart < time.getStart()) {
+                endBefore = maxEnd;
+                lastStart = time.getStart();
+            }
+            maxEnd = Math.max(maxEnd, time.getEnd());
+            try {
+                validDuration(time, temp.getMinTimeOfEvent(), temp.getMaxTimeOfEvent());
+                if (temp.getMinTimeBtwEvents() != -1 && endBefore != Long.MIN_VALUE
+                        && tooClose(temp, endBefore, time.getStart())) {
+                    throw new BetweenException("Error: Between time is too short.");
+                }
+            } catch (DurationException | BetweenException e) {
+                report.addViolation(event, e.getMessage());
+            }
+        }
+        report.addSchedule(events.size());
+    }
+
+    /**
+     * A fork/join task that checks a slice of a list of schedules of a template by revalidateSchedule. A slice longer
+     * than REVALIDATION_BATCH is split in two halves that are checked in parallel, and their reports are merged in
+     * order.
+     * templateID: id of the template.
+     * temp: the template.
+     * schedules: the schedules, shared by all tasks.
+     * from: index of the first schedule of the slice.
+     * to: index after the last schedule of the slice.
+     */
+    private static final class RevalidationTask extends RecursiveTask<RevalidationReport> {
+        private static final long serialVersionUID = 1L;
+        private final String templateID;
+        private final Template temp;
+        private final List<Schedule> schedules;
+        private final int from;
+        private final int to;
+
+        private RevalidationTask(String templateID, Template temp, List<Schedule> schedules, int from, int to) {
+            this.templateID = templateID;
+            this.temp = temp;
+            this.schedules = schedules;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RevalidationReport compute() {
+            if (to - from > REVALIDATION_BATCH) {
+                int middle = (from + to) >>> 1;
+                RevalidationTask first = new RevalidationTask(templateID, temp, schedules, from, middle);
+                RevalidationTask second = new RevalidationTask(templateID, temp, schedules, middle, to);
+                first.fork();
+                RevalidationReport report = second.compute();
+                RevalidationReport firstReport = first.join();
+                firstReport.merge(report);
+                return firstReport;
+            }
+            RevalidationReport report = new RevalidationReport(templateID);
+            for (int i = from; i < to; i++) {
+                revalidateSchedule(schedules.get(i), temp, report);
+            }
+            return report;
+        }
+    }
+
     /**
      * Display the schedule events by the given schedule id.
      * @param scheduleID schedule's id.
@@ -388,17 +1211,56 @@ public class ScheduleManager {
      * @return list of public schedules.
      */
     public List<Schedule> getAllPublicSchedule() {
-        List<Schedule> public_schedule = new ArrayList<>();
-        for (List<Schedule> s_list : schedulesList.values()) {
-            for (Schedule s : s_list) {
-                if (s.getStatus().equals("public")) {
-                    public_schedule.add(s);
-                }
-            }
+        List<Schedule> public_schedule = new ArrayList<>(getPublicScheduleCount());
+        for (Schedule s : getSchedulesByStatus("public")) {
+            public_schedule.add(s);
         }
         return public_schedule;
     }
 
+    /**
+     * Gets all schedules in the given status, without copying them into a list. The schedules are looked up while
+     * iterating, so the schedules must not be changed until the iteration is done.
+     * @param status either 'public', 'private' or 'friend-only'.
+     * @return schedules in the order they got the status.
+     */
+    public Iterable<Schedule> getSchedulesByStatus(String status) {
+        Set<String> ids = getScheduleIdsByStatus(status);
+        return () -> new Iterator<Schedule>() {
+            private final Iterator<String> idIterator = ids.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return idIterator.hasNext();
+            }
+
+            @Override
+            public Schedule next() {
+                return idToSchedule.get(idIterator.next());
+            }
+        };
+    }
+
+    /**
+     * Gets the number of public schedules.
+     * @return number of public schedules.
+     */
+    public int getPublicScheduleCount() {
+        return getScheduleIdsByStatus("public").size();
+    }
+
+    /**
+     * Gets the IDs of all schedules in the given status.
+     * @param status either 'public', 'private' or 'friend-only'.
+     * @return unmodifiable set of schedule IDs, in the order they got the status.
+     */
+    public Set<String> getScheduleIdsByStatus(String status) {
+        if (!statusToIds.containsKey(status)) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(statusToIds.get(status));
+    }
+
     /**
      * Checks whether there exists schedule with the given scheduleID belongs to the user with the given userID.
      * @param userID user's id.
@@ -406,46 +1268,35 @@ public class ScheduleManager {
      * @return true iff this schedule belongs to the user.
      */
     public boolean checkScheduleBelongs(String userID, String scheduleID){
-        if (schedulesList.containsKey(userID)){
-            for (Schedule s: schedulesList.get(userID)){
-                if (s.getScheduleID().equals(scheduleID)){
-                    return true;
-                }
-            }
-        }
-        return false;
+        return userID.equals(scheduleOwner.get(scheduleID));
     }
 
     /**
-     * Return the schedule with the given scheduleID.
+     * Return the id of the user whose schedulesList contains the schedule with the given scheduleID.
      * @param scheduleID schedule's id.
-     * @return true iff the schedule exist, but never returns false.
+     * @return owner's user id.
      * @throws ScheduleNotFoundException when the given scheduleID does not exist.
      */
-    public Schedule getScheduleByID(String scheduleID) throws ScheduleNotFoundException {
-        for (List<Schedule> s_list: schedulesList.values()){
-            for (Schedule s: s_list){
-                if (s.getScheduleID().equals(scheduleID)){
-                    return s;
-                }
-            }
+    public String getScheduleOwner(String scheduleID) throws ScheduleNotFoundException {
+        String owner = scheduleOwner.get(scheduleID);
+        if (owner == null) {
+            throw new ScheduleNotFoundException("This schedule does not exist");
         }
-        throw new ScheduleNotFoundException("This schedule does not exist");
+        return owner;
     }
 
     /**
-     * Checks if the user input date or time format is correct. If it is correct, return date in Date.
-     * @param date user input date or time.
-     * @param dateFormat correct date format.
-     * @throws ParseException when the time format is incorrect.
-     * @return return date in Date if format is correct.
+     * Return the schedule with the given scheduleID.
+     * @param scheduleID schedule's id.
+     * @return true iff the schedule exist, but never returns false.
+     * @throws ScheduleNotFoundException when the given scheduleID does not exist.
      */
-    // reference: https://stackoverflow.com/questions/226910/how-to-sanity-check-a-date-in-java
-    private Date isDateValid(String date, String dateFormat) throws ParseException {
-        DateFormat df = new SimpleDateFormat(dateFormat);
-        df.setLenient(false);
-        df.parse(date);
-        return new SimpleDateFormat(dateFormat).parse(date);
+    public Schedule getScheduleByID(String scheduleID) throws ScheduleNotFoundException {
+        Schedule s = idToSchedule.get(scheduleID);
+        if (s == null) {
+            throw new ScheduleNotFoundException("This schedule does not exist");
+        }
+        return s;
     }
 
     /**
@@ -468,10 +1319,7 @@ public class ScheduleManager {
      */
     public void addDeletedEvents(String scheduleID, String eventName, List<Date> newDeleted)
             throws ScheduleNotFoundException {
-        HashMap<String, List<Date>> deleted = getDeletedEvents(scheduleID);
-        deleted.put(eventName, newDeleted);
-        Schedule s = getScheduleByID(scheduleID);
-        s.setDeletedEvents(deleted);
+        getScheduleByID(scheduleID).putDeletedEventTime(eventName, new EventTime(newDeleted.get(0), newDeleted.get(1)));
     }
 
     /**
@@ -482,42 +1330,33 @@ public class ScheduleManager {
      */
     public void removeDeletedEvents(String scheduleID, String eventName)
             throws ScheduleNotFoundException {
-        HashMap<String, List<Date>> deleted = getDeletedEvents(scheduleID);
-        deleted.remove(eventName);
-        Schedule s = getScheduleByID(scheduleID);
-        s.setDeletedEvents(deleted);
+        getScheduleByID(scheduleID).removeDeletedEventTime(eventName);
     }
 
     /**
-     * Clear deletedEvents
+     * Put the most recently deleted time of the event with eventName back to the schedule, and remove it from
+     * deletedEvents.
+     * @param scheduleID schedule's id
+     * @param eventName event name
+     * @return the recovered time, null if no event with eventName is deleted.
+     * @throws ScheduleNotFoundException id not valid
      */
-    public void clearDeletedEvents() {
-        HashMap<String, List<Date>> clear = new HashMap<>();
-        for (List<Schedule> ls : schedulesList.values()) {
-            for (Schedule s : ls) {
-                s.setDeletedEvents(clear);
-            }
+    public EventTime recoverDeletedEvent(String scheduleID, String eventName) throws ScheduleNotFoundException {
+        Schedule s = getScheduleByID(scheduleID);
+        EventTime time = s.getDeletedEventTime(eventName);
+        if (time != null) {
+            addValidEvent(time, s, eventName);
+            s.removeDeletedEventTime(eventName);
         }
+        return time;
     }
 
     /**
-     * share a specific schedule to all friends
-     * @param scheduleId schedule id
-     * @param um UserManager
-     * @throws ScheduleNotFoundException id not valid
+     * Clear deletedEvents
      */
-    public void shareScheduleToFriends(String scheduleId, UserManager um) throws ScheduleNotFoundException {
-        String userID = getScheduleByID(scheduleId).getAuthor();
-        ArrayList<String> friendsList = um.getFriendsId(userID);
-        for(String friID: friendsList){
-            if(schedulesFriend.containsKey(friID)){
-                schedulesFriend.get(friID).add(getScheduleByID(scheduleId));
-            }
-            else{
-                ArrayList<Schedule> scheduleList = new ArrayList<>();
-                scheduleList.add(getScheduleByID(scheduleId));
-                schedulesFriend.put(friID, scheduleList);
-            }
+    public void clearDeletedEvents() {
+        for (Schedule s : idToSchedule.values()) {
+            s.clearDeletedEvents();
         }
     }
-}
\ No newline at end of file
+}
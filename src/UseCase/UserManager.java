@@ -2,9 +2,12 @@ package UseCase;
 
 import Entity.*;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class to create user, and check, change some certain features like password and email
@@ -14,41 +17,174 @@ import java.util.HashMap;
  * permanentUsers: An ArrayList of PermanentUser objects that contains all the regular and admin users
  * trailUsers: An ArrayList of User object that contains all the trial users
  * suspensions: A HashMap which key is the user's email, value is Date object of the date that user got unsuspended
- * freezes: An ArrayList of user's email who got freeze
+ * freezes: A LinkedHashSet of the ids of the users who got freeze, in the order they got freeze
  * lastLoginTime: A HashMap which key is the user's email, value is their last login time in Date object
- * tempInfo: A HashMap which key is the user's email, value is their temporary password.
+ * tempInfo: A HashMap which key is the user's id, value is their temporary password.
+ * tempExpiry: A HashMap which key is the user's id, value is Date object of the time their temporary password expires
+ * emailToUser: A HashMap which key is the user's email, value is the PermanentUser object, an index over permanentUsers
+ * idToUser: A HashMap which key is the user's id, value is the PermanentUser object, an index over permanentUsers
+ * friendGraph: A HashMap which key is the user's id, value is the set of ids of this user's friends, an index over
+ * the friends of permanentUsers. Friends are kept by id, so the links stay the same when a user changes email.
+ * loginIndex: A TreeMap which key is a login time in milliseconds, value is the ids of the users whose last login
+ * was at that time, an index over lastLoginTime sorted by time
+ * tempPasswordTtl: how long a temporary password can be used, in milliseconds
+ * expiries: the times suspensions and temporary passwords expire, taken by the expiry thread when they are due
+ * queued: A HashMap which key is "suspension:" plus the user's email or "temp:" plus the user's id, value is the
+ * only entry of it in expiries, so that the entry is replaced when it changes and expiries stays as large as
+ * suspensions and tempExpiry together
+ * expiryListener: the listener that is told about what the expiry thread removed, or null
+ * hasher: the PasswordHasher that hashes and checks the passwords of permanentUsers on its worker threads
+ * rehashed: whether a password was hashed again at login since passwordsRehashed was last called
+ *
+ * suspensions, tempInfo and tempExpiry are also used by the expiry thread, so they are only used while this
+ * UserManager is locked.
  *
  * @author Qing Lyu
  * @author Zhen Cheng
  */
 public class UserManager{
+	private static final long TEMP_PASSWORD_TTL = 24L*60*60*1000;
+	private static final String SUSPENSION = "suspension:";
+	private static final String TEMP = "temp:";
+	private static final String PASSWORD_SPECIALS = "-+_!@#$%^&*., ?";
+	private static final String EMAIL_SPECIALS = "_+&*-";
 	private ArrayList<PermanentUser> permanentUsers;
 	private ArrayList<User> trialUsers;
 	private HashMap<String, Date> suspensions;
-	private ArrayList<String> freezes;
+	private LinkedHashSet<String> freezes;
 	private HashMap<String, Date> lastLoginTime;
 	private HashMap<String, String> tempInfo;
+	private HashMap<String, Date> tempExpiry;
+	private HashMap<String, PermanentUser> emailToUser;
+	private HashMap<String, PermanentUser> idToUser;
+	private HashMap<String, LinkedHashSet<String>> friendGraph;
+	private TreeMap<Long, LinkedHashSet<String>> loginIndex;
+	private long tempPasswordTtl;
+	private final DelayQueue<Expiry> expiries;
+	private final HashMap<String, Expiry> queued;
+	private ExpiryListener expiryListener;
+	private PasswordHasher hasher;
+	private volatile boolean rehashed;
 
 	/**
-	 * A constructor for UserManager and Initialize the six attributes.
+	 * A constructor for UserManager, which initializes the users, the indexes over them and the queue of expiries.
+	 * @param hasher the PasswordHasher that hashes and checks the passwords
 	 */
-	public UserManager() {
+	public UserManager(PasswordHasher hasher) {
 		permanentUsers = new ArrayList<>();
 		trialUsers = new ArrayList<>();
 		suspensions = new HashMap<>();
-		freezes = new ArrayList<>();
+		freezes = new LinkedHashSet<>();
 		lastLoginTime = new HashMap<>();
 		tempInfo = new HashMap<>();
+		tempExpiry = new HashMap<>();
+		emailToUser = new HashMap<>();
+		idToUser = new HashMap<>();
+		friendGraph = new HashMap<>();
+		loginIndex = new TreeMap<>();
+		tempPasswordTtl = TEMP_PASSWORD_TTL;
+		expiries = new DelayQueue<>();
+		queued = new HashMap<>();
+		this.hasher = hasher;
+	}
+
+	/**
+	 * A setter for hasher, which is used for the passwords hashed and checked later
+	 * The passwords hashed with another cost are hashed again with the cost of hasher when the users login.
+	 * @param hasher the PasswordHasher
+	 */
+	public void setPasswordHasher(PasswordHasher hasher) {
+		this.hasher = hasher;
+	}
+
+	/**
+	 * It is a getter for hasher attribute
+	 * @return hasher
+	 */
+	public PasswordHasher getPasswordHasher() {
+		return hasher;
+	}
+
+	/**
+	 * Return true iff a password was hashed again at login since this method was last called, so that the users
+	 * should be saved
+	 * @return true iff a password of permanentUsers was changed to a new hash
+	 */
+	public boolean passwordsRehashed() {
+		boolean changed = rehashed;
+		rehashed = false;
+		return changed;
+	}
+
+	/**
+	 * Wait for the result of a task of hasher
+	 * @param task the task
+	 * @param <T> type of the result
+	 * @return the result
+	 */
+	private static <T> T await(Future<T> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a password to be hashed.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
 	}
 
 	/**
 	 * Sets permanentUsers attribute.
-	 * It is a setter for permanentUsers attribute
+	 * It is a setter for permanentUsers attribute, and rebuilds emailToUser, idToUser and friendGraph.
+	 * Friends saved by email, as older versions did, are changed to their ids. A friend whose email or id
+	 * belongs to no user is dropped, and a friendship saved for only one of the two users is added to the other.
 	 * @param permanentUsers ArrayList of permanentUsers that contains all the info
 	 *                       of regular and admin
 	 */
 	public void setPermanentUsers(ArrayList<PermanentUser> permanentUsers) {
 		this.permanentUsers = permanentUsers;
+		emailToUser = new HashMap<>();
+		idToUser = new HashMap<>();
+		friendGraph = new HashMap<>();
+		for (PermanentUser pu: permanentUsers){
+			emailToUser.put(pu.getEmail(), pu);
+			idToUser.put(pu.getUserId(), pu);
+			friendGraph.put(pu.getUserId(), new LinkedHashSet<>());
+		}
+		for (PermanentUser pu: permanentUsers){
+			for (String friend: pu.getFriends()){
+				PermanentUser fu = idToUser.containsKey(friend) ? idToUser.get(friend) : emailToUser.get(friend);
+				if (fu != null && fu != pu){
+					friendGraph.get(pu.getUserId()).add(fu.getUserId());
+					friendGraph.get(fu.getUserId()).add(pu.getUserId());
+				}
+			}
+		}
+		for (PermanentUser pu: permanentUsers){
+			pu.getFriends().clear();
+			pu.getFriends().addAll(friendGraph.get(pu.getUserId()));
+		}
+	}
+
+	/**
+	 * Returns the PermanentUser with this email, or null if there is no such user
+	 * @param email user's email
+	 * @return the PermanentUser object or null
+	 */
+	public PermanentUser getUserByEmail(String email) {
+		return emailToUser.get(email);
+	}
+
+	/**
+	 * Returns the PermanentUser with this id, or null if there is no such user
+	 * @param userId user's id
+	 * @return the PermanentUser object or null
+	 */
+	public PermanentUser getUserById(String userId) {
+		return idToUser.get(userId);
 	}
 
 	/**
@@ -62,19 +198,19 @@ public class UserManager{
 
 	/**
 	 * Return a ArrayList that contains userId who get freeze by admin
-	 * It is a getter for freezes attribute
+	 * It is a getter for freezes attribute, which returns a copy of it
 	 * @return ArrayList of user's id that got freeze by admin user
 	 */
 	public ArrayList<String> getFreezes() {
-		return freezes;
+		return new ArrayList<>(freezes);
 	}
 
 	/**
-	 * A setter for freezes
+	 * A setter for freezes, in which an id that is there more than once is only kept once
 	 * @param freezes which is the arraylist of String
 	 */
 	public void setFreezes(ArrayList<String> freezes) {
-		this.freezes = freezes;
+		this.freezes = new LinkedHashSet<>(freezes);
 	}
 
 	/**
@@ -86,49 +222,254 @@ public class UserManager{
 	}
 
 	/**
-	 * A setter for lastLoginTime
+	 * A setter for lastLoginTime, which also rebuilds loginIndex
 	 * @param lastLoginTime the input HashMap
 	 */
 	public void setLastLoginTime(HashMap<String, Date> lastLoginTime) {
 		this.lastLoginTime = lastLoginTime;
+		loginIndex = new TreeMap<>();
+		for (Map.Entry<String, Date> login: lastLoginTime.entrySet()){
+			loginIndex.computeIfAbsent(login.getValue().getTime(), time -> new LinkedHashSet<>()).add(login.getKey());
+		}
 	}
 
 	/**
-	 * It is a getter for suspensions attribute
+	 * It is a getter for suspensions attribute, which returns a copy of it
 	 * @return suspensions
 	 */
-	public HashMap<String, Date> getSuspensions() {
-		return suspensions;
+	public synchronized HashMap<String, Date> getSuspensions() {
+		return new HashMap<>(suspensions);
 	}
 
 	/**
-	 * A setter for suspensions
+	 * A setter for suspensions, which also schedules when each suspension expires
 	 * @param suspensions the input suspensions
 	 */
-	public void setSuspensions(HashMap<String, Date> suspensions) {
+	public synchronized void setSuspensions(HashMap<String, Date> suspensions) {
+		for (String email: this.suspensions.keySet()){
+			cancelExpiry(SUSPENSION + email);
+		}
 		this.suspensions = suspensions;
+		for (Map.Entry<String, Date> suspension: suspensions.entrySet()){
+			scheduleExpiry(SUSPENSION, suspension.getKey(), suspension.getValue().getTime());
+		}
 	}
 
 	/**
-	 * It is a getter for tempInfo attribute
+	 * It is a getter for tempInfo attribute, which returns a copy of it
 	 * @return tempInfo
 	 */
-	public HashMap<String, String> getTempInfo() {
-		return tempInfo;
+	public synchronized HashMap<String, String> getTempInfo() {
+		return new HashMap<>(tempInfo);
 	}
 
 	/**
-	 * A setter for tempInfo
+	 * A setter for tempInfo, which also schedules when each temporary password expires.
+	 * A temporary password whose expiry time is not known, e.g. because it was saved by an older version, expires
+	 * tempPasswordTtl after it is set.
 	 * @param tempInfo the input tempInfo
 	 */
-	public void setTempInfo(HashMap<String, String> tempInfo) {
+	public synchronized void setTempInfo(HashMap<String, String> tempInfo) {
 		this.tempInfo = tempInfo;
+		scheduleTempPasswords();
+	}
+
+	/**
+	 * It is a getter for tempExpiry attribute, which returns a copy of it
+	 * @return tempExpiry
+	 */
+	public synchronized HashMap<String, Date> getTempExpiry() {
+		return new HashMap<>(tempExpiry);
+	}
+
+	/**
+	 * A setter for tempExpiry, which also schedules when each temporary password expires.
+	 * It can be called before or after setTempInfo.
+	 * @param tempExpiry the input tempExpiry
+	 */
+	public synchronized void setTempExpiry(HashMap<String, Date> tempExpiry) {
+		this.tempExpiry = tempExpiry;
+		scheduleTempPasswords();
+	}
+
+	/**
+	 * A setter for tempPasswordTtl, which is used for the temporary passwords set later
+	 * @param tempPasswordTtl how long a temporary password can be used, in milliseconds
+	 */
+	public synchronized void setTempPasswordTtl(long tempPasswordTtl) {
+		this.tempPasswordTtl = tempPasswordTtl;
+	}
+
+	/**
+	 * Set this user's temporary password, which expires tempPasswordTtl later
+	 * Call this method when this user chooses "Forgot Password"
+	 * @param userId this user's id
+	 * @param password the temporary password
+	 * @return a Date object that represents the time the temporary password expires
+	 */
+	public synchronized Date setTempPassword(String userId, String password){
+		Date expiry = new Date(System.currentTimeMillis() + tempPasswordTtl);
+		tempInfo.put(userId, password);
+		tempExpiry.put(userId, expiry);
+		scheduleExpiry(TEMP, userId, expiry.getTime());
+		return expiry;
+	}
+
+	/**
+	 * Return true iff password is this user's temporary password and it has not expired
+	 * @param userId this user's id
+	 * @param password the password this user entered in
+	 * @return true iff this user can login with password as temporary password
+	 */
+	public synchronized boolean checkTempPassword(String userId, String password){
+		Date expiry = tempExpiry.get(userId);
+		return password.equals(tempInfo.get(userId))
+				&& (expiry == null || expiry.getTime() > System.currentTimeMillis());
+	}
+
+	/**
+	 * Delete this user's temporary password
+	 * @param userId this user's id
+	 */
+	public synchronized void deleteTempPassword(String userId){
+		tempInfo.remove(userId);
+		tempExpiry.remove(userId);
+		cancelExpiry(TEMP + userId);
+	}
+
+	/**
+	 * Schedule when each temporary password in tempInfo or tempExpiry expires, and give the temporary passwords
+	 * whose expiry time is not known one.
+	 */
+	private void scheduleTempPasswords(){
+		long defaultExpiry = System.currentTimeMillis() + tempPasswordTtl;
+		for (String userId: tempInfo.keySet()){
+			if (!tempExpiry.containsKey(userId)){
+				tempExpiry.put(userId, new Date(defaultExpiry));
+			}
+		}
+		for (Map.Entry<String, Date> expiry: tempExpiry.entrySet()){
+			scheduleExpiry(TEMP, expiry.getKey(), expiry.getValue().getTime());
+		}
+	}
+
+	/**
+	 * Put an entry into expiries, replacing the one that is there for the same key.
+	 * @param kind SUSPENSION or TEMP
+	 * @param key user's email for a suspension, user's id for a temporary password
+	 * @param time the time it expires in milliseconds
+	 */
+	private void scheduleExpiry(String kind, String key, long time){
+		cancelExpiry(kind + key);
+		Expiry expiry = new Expiry(kind, key, time);
+		queued.put(kind + key, expiry);
+		expiries.add(expiry);
+	}
+
+	/**
+	 * Remove the entry of a key from expiries, if there is one.
+	 * @param queuedKey kind and key of the entry
+	 */
+	private void cancelExpiry(String queuedKey){
+		Expiry expiry = queued.remove(queuedKey);
+		if (expiry != null){
+			expiries.remove(expiry);
+		}
+	}
+
+	/**
+	 * Start a daemon thread that removes each suspension and temporary password when it expires, then tells
+	 * listener what it removed. The entries that expire at about the same time are removed together.
+	 * @param listener the listener, which is called on the thread
+	 * @return the thread
+	 */
+	public synchronized Thread startExpiry(ExpiryListener listener){
+		expiryListener = listener;
+		Thread thread = new Thread(() -> {
+			try {
+				while (!Thread.currentThread().isInterrupted()){
+					ArrayList<Expiry> due = new ArrayList<>();
+					due.add(expiries.take());
+					expiries.drainTo(due);
+					expire(due);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "UserManager-expiry");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Remove the suspensions and temporary passwords that expired, then tell expiryListener what was removed.
+	 * An entry that was replaced or cancelled after it was taken from expiries is skipped.
+	 * @param due the entries taken from expiries
+	 */
+	private void expire(List<Expiry> due){
+		ArrayList<String> emails = new ArrayList<>();
+		ArrayList<String> userIds = new ArrayList<>();
+		ExpiryListener listener;
+		synchronized (this){
+			for (Expiry expiry: due){
+				if (queued.get(expiry.kind + expiry.key) != expiry){
+					continue;
+				}
+				queued.remove(expiry.kind + expiry.key);
+				if (expiry.kind.equals(SUSPENSION)){
+					suspensions.remove(expiry.key);
+					emails.add(expiry.key);
+				}else{
+					tempInfo.remove(expiry.key);
+					tempExpiry.remove(expiry.key);
+					userIds.add(expiry.key);
+				}
+			}
+			listener = expiryListener;
+		}
+		if (listener != null && !emails.isEmpty()){
+			listener.suspensionsExpired(emails);
+		}
+		if (listener != null && !userIds.isEmpty()){
+			listener.tempPasswordsExpired(userIds);
+		}
+	}
+
+	/**
+	 * An entry of expiries: a suspension or a temporary password, and the time it expires.
+	 */
+	private static final class Expiry implements Delayed {
+		private final String kind;
+		private final String key;
+		private final long time;
+
+		/**
+		 * @param kind SUSPENSION or TEMP
+		 * @param key user's email for a suspension, user's id for a temporary password
+		 * @param time the time it expires in milliseconds
+		 */
+		private Expiry(String kind, String key, long time){
+			this.kind = kind;
+			this.key = key;
+			this.time = time;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit){
+			return unit.convert(time - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other){
+			return Long.compare(time, ((Expiry) other).time);
+		}
 	}
 
 	/**
 	 * Return true if and only if this user add friend successfully,
 	 * Both ownEmail and friendEmail do not belong to admin user, and they are different.
-	 * Update both users' friendList.
+	 * Update both users' friendList and friendGraph.
 	 * @param ownEmail this user's email
 	 * @param friendEmail the friend's email to be added
 	 * @return true iff added friend successfully
@@ -136,17 +477,14 @@ public class UserManager{
 	public boolean addFriend(String ownEmail, String friendEmail){
 		if (!ownEmail.equals(friendEmail) && !getUserTypeByEmail(ownEmail).equals("admin")
 				&& !getUserTypeByEmail(friendEmail).equals("admin")){
-			for (PermanentUser pu: permanentUsers){
-				if (pu.getEmail().equals(ownEmail)){
-					ArrayList<String> friends = pu.getFriends();
-					if (!friends.contains(friendEmail)){
-						friends.add(friendEmail);
-					}
-				}else if (pu.getEmail().equals(friendEmail)){
-					ArrayList<String> friends = pu.getFriends();
-					if (!friends.contains(ownEmail)){
-						friends.add(ownEmail);
-					}
+			PermanentUser own = emailToUser.get(ownEmail);
+			PermanentUser friend = emailToUser.get(friendEmail);
+			if (own != null && friend != null){
+				if (friendsOf(own.getUserId()).add(friend.getUserId())){
+					own.getFriends().add(friend.getUserId());
+				}
+				if (friendsOf(friend.getUserId()).add(own.getUserId())){
+					friend.getFriends().add(own.getUserId());
 				}
 			}
 			return true;
@@ -161,30 +499,51 @@ public class UserManager{
 	 */
 
 	public void deleteFriend(String ownEmail, String friendEmail){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getEmail().equals(ownEmail)){
-				ArrayList<String> friends = pu.getFriends();
-				friends.remove(friendEmail);
+		PermanentUser own = emailToUser.get(ownEmail);
+		PermanentUser friend = emailToUser.get(friendEmail);
+		if (own != null && friend != null && own != friend){
+			if (friendsOf(own.getUserId()).remove(friend.getUserId())){
+				own.getFriends().remove(friend.getUserId());
 			}
-			else if (pu.getEmail().equals(friendEmail)){
-				ArrayList<String> friends = pu.getFriends();
-				friends.remove(ownEmail);
+			if (friendsOf(friend.getUserId()).remove(own.getUserId())){
+				friend.getFriends().remove(own.getUserId());
 			}
 		}
 	}
 
+	/**
+	 * Return the set of ids of this user's friends in friendGraph, which is added to friendGraph if this user
+	 * has no set yet.
+	 * @param userId this user's id
+	 * @return the set of friends' ids
+	 */
+	private LinkedHashSet<String> friendsOf(String userId){
+		LinkedHashSet<String> friends = friendGraph.get(userId);
+		if (friends == null){
+			friends = new LinkedHashSet<>();
+			friendGraph.put(userId, friends);
+		}
+		return friends;
+	}
+
+	/**
+	 * Return true iff the two users are friends
+	 * @param userId this user's id
+	 * @param otherId the other user's id
+	 * @return true iff otherId is one of this user's friends
+	 */
+	public boolean isFriend(String userId, String otherId){
+		LinkedHashSet<String> friends = friendGraph.get(userId);
+		return friends != null && friends.contains(otherId);
+	}
+
 	/**
 	 * Return an arraylist of email's that is user's friend
 	 * @param userId this user's id
 	 * @return an ArrayList that contains all of this user's friends' emails
 	 */
 	public ArrayList<String> getFriends(String userId){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getUserId().equals(userId)){
-				return pu.getFriends();
-			}
-		}
-		return new ArrayList<>();
+		return toEmails(getFriendsId(userId));
 	}
 
 	/**
@@ -193,12 +552,82 @@ public class UserManager{
 	 * @return an ArrayList that contains all of this user's friends' ids
 	 */
 	public ArrayList<String> getFriendsId(String userId){
-		ArrayList<String> friends = getFriends(userId);
-		ArrayList<String> friendIds = new ArrayList<>();
-		for (String email: friends){
-			friendIds.add(getUserId(email));
+		LinkedHashSet<String> friends = friendGraph.get(userId);
+		if (friends == null){
+			return new ArrayList<>();
 		}
-		return friendIds;
+		return new ArrayList<>(friends);
+	}
+
+	/**
+	 * Return an arraylist of id's of the users that are friends of both users.
+	 * Only the friends of the user with fewer friends are looked at.
+	 * @param userId this user's id
+	 * @param otherId the other user's id
+	 * @return an ArrayList that contains the ids of the mutual friends
+	 */
+	public ArrayList<String> getMutualFriendsId(String userId, String otherId){
+		ArrayList<String> mutual = new ArrayList<>();
+		LinkedHashSet<String> friends = friendGraph.get(userId);
+		LinkedHashSet<String> others = friendGraph.get(otherId);
+		if (friends == null || others == null){
+			return mutual;
+		}
+		if (others.size() < friends.size()){
+			LinkedHashSet<String> smaller = others;
+			others = friends;
+			friends = smaller;
+		}
+		for (String friend: friends){
+			if (others.contains(friend)){
+				mutual.add(friend);
+			}
+		}
+		return mutual;
+	}
+
+	/**
+	 * Return an arraylist of id's of the friends of this user's friends, who are not this user or this user's
+	 * friends, with the users that have the most mutual friends with this user first.
+	 * @param userId this user's id
+	 * @param limit the largest number of ids returned
+	 * @return an ArrayList that contains at most limit ids
+	 */
+	public ArrayList<String> getFriendsOfFriendsId(String userId, int limit){
+		LinkedHashSet<String> friends = friendGraph.get(userId);
+		HashMap<String, Integer> mutualCount = new HashMap<>();
+		if (friends != null){
+			for (String friend: friends){
+				for (String candidate: friendsOf(friend)){
+					if (!candidate.equals(userId) && !friends.contains(candidate)){
+						mutualCount.merge(candidate, 1, Integer::sum);
+					}
+				}
+			}
+		}
+		ArrayList<Map.Entry<String, Integer>> candidates = new ArrayList<>(mutualCount.entrySet());
+		candidates.sort((a, b) -> b.getValue() - a.getValue());
+		ArrayList<String> suggestions = new ArrayList<>();
+		for (int i = 0; i < candidates.size() && i < limit; i++) {
+			suggestions.add(candidates.get(i).getKey());
+		}
+		return suggestions;
+	}
+
+	/**
+	 * Return the emails of the users with the given ids
+	 * @param userIds the users' ids
+	 * @return an ArrayList that contains the users' emails, in the same order
+	 */
+	public ArrayList<String> toEmails(List<String> userIds){
+		ArrayList<String> emails = new ArrayList<>();
+		for (String id: userIds){
+			PermanentUser pu = idToUser.get(id);
+			if (pu != null){
+				emails.add(pu.getEmail());
+			}
+		}
+		return emails;
 	}
 
 	/**
@@ -240,23 +669,45 @@ public class UserManager{
 	 * @param period suspend days
 	 * @param suspendTime the start time
 	 */
-	public void suspendUser(String email, int period, long suspendTime){
+	public synchronized void suspendUser(String email, int period, long suspendTime){
 		Date endTime = new Date(((long) period *24*60*60*1000) + suspendTime);
 		suspensions.put(email, endTime);
+		scheduleExpiry(SUSPENSION, email, endTime.getTime());
+	}
+
+	/**
+	 * Returns the users who are suspended at the given time, the users whose suspension ends first first.
+	 * @param time a time in milliseconds, usually now
+	 * @return a LinkedHashMap which key is the user's email, value is Date object of the date that user got unsuspended
+	 */
+	public synchronized LinkedHashMap<String, Date> getSuspendedUsers(long time){
+		ArrayList<Map.Entry<String, Date>> suspended = new ArrayList<>();
+		for (Map.Entry<String, Date> suspension: suspensions.entrySet()){
+			if (suspension.getValue().getTime() > time){
+				suspended.add(suspension);
+			}
+		}
+		suspended.sort(Map.Entry.comparingByValue());
+		LinkedHashMap<String, Date> sorted = new LinkedHashMap<>();
+		for (Map.Entry<String, Date> suspension: suspended){
+			sorted.put(suspension.getKey(), suspension.getValue());
+		}
+		return sorted;
 	}
 
 	/**
 	 * Return true if and only if this user is not got suspend at the time he/she logins
 	 * Otherwise return false
+	 * A suspension that ended, at its end time like in expire, is removed here, together with its entry in expiries.
 	 * @param email of this user
 	 * @param loginTime the time this user login at this time
 	 * @return true iff this user is not suspended at the time he/she logins
 	 */
-	public boolean checkSuspension(String email, long loginTime){
+	public synchronized boolean checkSuspension(String email, long loginTime){
 		if (suspensions.containsKey(email)){
-			Date currTime = new Date(loginTime);
-			if (currTime.after(suspensions.get(email))){
+			if (loginTime >= suspensions.get(email).getTime()){
 				suspensions.remove(email);
+				cancelExpiry(SUSPENSION + email);
 				return true;
 			}else{
 				return false;
@@ -270,22 +721,68 @@ public class UserManager{
 	 * @param email this user's email
 	 * @return a Date object that represents the time this user can login back
 	 */
-	public Date displayLeftTime(String email){
+	public synchronized Date displayLeftTime(String email){
 		return suspensions.get(email);
 	}
 
 	/**
 	 * Freeze users by enter in freeze days
+	 * The users who have not logged in for more than period days are frozen, a user who is already frozen stays
+	 * frozen once.
 	 * @param period the length of the freeze(freeze days)
+	 * @return the number of users who got freeze by this call
 	 */
-	public void freezeUser(int period){
+	public int freezeUser(int period){
 		long freezePeriod = System.currentTimeMillis() - (long) period *24*60*60*1000;
-		Date freezeTime = new Date(freezePeriod);
-		for (String id: lastLoginTime.keySet()){
-			if (lastLoginTime.get(id).before(freezeTime)){
-				freezes.add(id);
+		int frozen = 0;
+		for (String id: getInactiveUsers(freezePeriod)){
+			if (freezes.add(id)){
+				frozen++;
 			}
 		}
+		return frozen;
+	}
+
+	/**
+	 * Returns an ArrayList that contains the ids of the users whose last login is before the given time, the users
+	 * who logged in least recently first.
+	 * Only the users who logged in before time are looked at in loginIndex.
+	 * @param time a time in milliseconds
+	 * @return an ArrayList of user's id
+	 */
+	public ArrayList<String> getInactiveUsers(long time){
+		ArrayList<String> inactive = new ArrayList<>();
+		for (LinkedHashSet<String> ids: loginIndex.headMap(time, false).values()){
+			inactive.addAll(ids);
+		}
+		return inactive;
+	}
+
+	/**
+	 * Return true iff this user got freeze
+	 * @param userId this user's id
+	 * @return true iff this user is frozen
+	 */
+	public boolean isFrozen(String userId){
+		return freezes.contains(userId);
+	}
+
+	/**
+	 * Return true iff this user is a user of this app that is not frozen, i.e. iff checkUnfreeze contains userId,
+	 * without making the whole list
+	 * @param userId this user's id
+	 * @return true iff this user is not frozen
+	 */
+	public boolean isUnfrozen(String userId){
+		if (idToUser.containsKey(userId)){
+			return !freezes.contains(userId);
+		}
+		for (User user: trialUsers){
+			if (user.getUserId().equals(userId)){
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -318,11 +815,19 @@ public class UserManager{
 	 * @param loginTime of this user for this time
 	 */
 	public void setLoginTime(String email, long loginTime){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getEmail().equals(email)){
-				lastLoginTime.put(pu.getUserId(), new Date(loginTime));
-				break;
+		PermanentUser pu = emailToUser.get(email);
+		if (pu != null){
+			Date last = lastLoginTime.put(pu.getUserId(), new Date(loginTime));
+			if (last != null){
+				LinkedHashSet<String> ids = loginIndex.get(last.getTime());
+				if (ids != null){
+					ids.remove(pu.getUserId());
+					if (ids.isEmpty()){
+						loginIndex.remove(last.getTime());
+					}
+				}
 			}
+			loginIndex.computeIfAbsent(loginTime, time -> new LinkedHashSet<>()).add(pu.getUserId());
 		}
 	}
 
@@ -351,13 +856,14 @@ public class UserManager{
 			return user.getUserId();
 		}
 		else {
-			for (PermanentUser permanentUser : permanentUsers) {
-				if (permanentUser.getEmail().equals(email)) {
-					return "duplicate email";
-				}
+			if (emailToUser.containsKey(email)) {
+				return "duplicate email";
 			}
-			PermanentUser user = new PermanentUser(email, password, userType);
+			PermanentUser user = new PermanentUser(email, await(hasher.hashAsync(password)), userType);
 			permanentUsers.add(user);
+			emailToUser.put(email, user);
+			idToUser.put(user.getUserId(), user);
+			friendGraph.put(user.getUserId(), new LinkedHashSet<>());
 			return user.getUserId();
 		}
 	}
@@ -367,21 +873,22 @@ public class UserManager{
 	 * this user wants to change is the same as before.
 	 * Otherwise, return false.
 	 * Call this method when this user want to change their email address.
+	 * The friends of this user are kept by id, so they stay the same.
 	 *
 	 * @param id this user's id
 	 * @param newEmail the new email this user entered in to change to
 	 * @return a boolean shows that whether the email changes to the new one or not
 	 */
 	public boolean changeEmail(String id, String newEmail){
-		int index = 0;
-		for (int i = 0; i < permanentUsers.size(); i++){
-			if (!permanentUsers.get(i).getUserId().equals(id) && permanentUsers.get(i).getEmail().equals(newEmail))
-				return false;
-			else if (permanentUsers.get(i).getUserId().equals(id))
-				index = i;
+		PermanentUser owner = emailToUser.get(newEmail);
+		if (owner != null && !owner.getUserId().equals(id))
+			return false;
+		PermanentUser pu = idToUser.get(id);
+		if (pu != null){
+			emailToUser.remove(pu.getEmail());
+			pu.setEmail(newEmail);
+			emailToUser.put(newEmail, pu);
 		}
-		if (!permanentUsers.isEmpty())
-			permanentUsers.get(index).setEmail(newEmail);
 		return true;
 	}
 
@@ -399,11 +906,9 @@ public class UserManager{
 		if (type.equals("too weak")){
 			return type;
 		}
-		for (PermanentUser pu: permanentUsers) {
-			if (pu.getUserId().equals(id)) {
-				pu.setPassword(password);
-				return type;
-			}
+		PermanentUser pu = idToUser.get(id);
+		if (pu != null) {
+			pu.setPassword(await(hasher.hashAsync(password)));
 		}
 		return type;
 	}
@@ -419,56 +924,96 @@ public class UserManager{
 	 * A 'good' password contains at least one uppercase letter and one lowercase letter and one number and
 	 * 0 or more special character(s).
 	 *
+	 * A password with any other character, e.g. a letter that is not in the English alphabet, is 'too weak'.
+	 * The characters are classified in one pass, without regular expressions.
+	 *
 	 * Reference: https://stackoverflow.com/questions/11533474/java-how-to-test-if-a-string-contains-both-letters-and-numbers
 	 * @param password which is the input password by user
 	 * @return the password type
 	 */
 	public String pwdType(String password){
-		if (password.matches("^(?=.*[a-zA-Z])[A-Za-z-+_!@#$%^&*., ?]+$") ||
-				password.matches("^(?=.*[0-9])[0-9-+_!@#$%^&*., ?]+$") ||
-				password.matches("^[-+_!@#$%^&*., ?]+$") || password.length() < 6){
+		if (password.length() < 6){
 			return "too weak";
-		}else if (password.matches("^(?=.*[A-Z])(?=.*[0-9])[A-Z0-9-+_!@#$%^&*., ?]+$") ||
-				password.matches("^(?=.*[a-z])(?=.*[0-9])[a-z0-9-+_!@#$%^&*., ?]+$")){
-			return "weak";
-		}else if (password.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])[A-Za-z0-9-+_!@#$%^&*., ?]+$"))
-			return "good";
-		else{
+		}
+		boolean upper = false;
+		boolean lower = false;
+		boolean digit = false;
+		for (int i = 0; i < password.length(); i++) {
+			char c = password.charAt(i);
+			if (c >= 'A' && c <= 'Z'){
+				upper = true;
+			}else if (c >= 'a' && c <= 'z'){
+				lower = true;
+			}else if (c >= '0' && c <= '9'){
+				digit = true;
+			}else if (PASSWORD_SPECIALS.indexOf(c) < 0){
+				return "too weak";
+			}
+		}
+		if (!digit || !(upper || lower)){
 			return "too weak";
 		}
+		return upper && lower ? "good" : "weak";
 	}
 
 	/**
 	 * Return true iff email entered in is a valid email address
 	 * Otherwise return false.
 	 *
-	 * This method uses a regular expression for String object to check.
+	 * This method checks the characters of email in one pass, without regular expressions.
 	 * It is a helper method which is called when user signs up or changes email.
 	 * A valid email would have this format: at least one letter or number or any character from '_', '+', '&', '*',
 	 * '-' followed by a '@' and at least one letter or number and a dot '.' and at least one letter or number.
+	 * Letters and numbers are the ones in the English alphabet and 0 to 9.
 	 *
 	 * @param email user's email address
 	 * @return true if this email is a valid email address
 	 */
 	public boolean isValidEmail(String email) {
-		return email.matches("^[a-zA-Z0-9_+&*-]+@[a-zA-Z0-9]+\\.[a-zA-Z0-9]+$");
+		int at = -1;
+		int dot = -1;
+		for (int i = 0; i < email.length(); i++) {
+			char c = email.charAt(i);
+			boolean alphanumeric = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+			if (at < 0){
+				if (c == '@' && i > 0){
+					at = i;
+				}else if (!alphanumeric && EMAIL_SPECIALS.indexOf(c) < 0){
+					return false;
+				}
+			}else if (c == '.' && dot < 0 && i > at + 1){
+				dot = i;
+			}else if (!alphanumeric){
+				return false;
+			}
+		}
+		return dot > 0 && dot < email.length() - 1;
 	}
 
 	/**
 	 * Returns true iff the userId matches with the password user entered in
 	 * If the userId does not exist, return false.
+	 * The password is checked against its salted hash on a worker thread of hasher. A password that is stored in
+	 * plain text, or hashed with another cost, is hashed again with the cost of hasher once it is checked.
 	 *
 	 * @param email this user's email
 	 * @param password the password this user entered in
 	 * @return a boolean that shows whether the id matches to password or not
 	 */
 	public boolean checkEmailPwd(String email, String password){
-		for (PermanentUser permanentUser : permanentUsers) {
-			if (permanentUser.getEmail().equals(email)) {
-				return permanentUser.getPassword().equals(password);
-			}
+		PermanentUser permanentUser = emailToUser.get(email);
+		if (permanentUser == null) {
+			return false;
 		}
-		return false;
+		String stored = permanentUser.getPassword();
+		if (!await(hasher.verifyAsync(password, stored))) {
+			return false;
+		}
+		if (hasher.needsRehash(stored)) {
+			permanentUser.setPassword(await(hasher.hashAsync(password)));
+			rehashed = true;
+		}
+		return true;
 	}
 
 	/**
@@ -481,16 +1026,15 @@ public class UserManager{
 	 * @return this user's type
 	 */
 	public String getUserType(String id){
+		PermanentUser pu = idToUser.get(id);
+		if (pu != null){
+			return pu.getUserType();
+		}
 		for (User tu: trialUsers){
 			if (tu.getUserId().equals(id)){
 				return "trial";
 			}
 		}
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getUserId().equals(id)){
-				return pu.getUserType();
-			}
-		}
 		return "No such user";
 	}
 
@@ -504,10 +1048,9 @@ public class UserManager{
 	 * @return this user's type
 	 */
 	public String getUserTypeByEmail(String email){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getEmail().equals(email)){
-				return pu.getUserType();
-			}
+		PermanentUser pu = emailToUser.get(email);
+		if (pu != null){
+			return pu.getUserType();
 		}
 		return "No such user";
 	}
@@ -521,10 +1064,9 @@ public class UserManager{
 	 * @return user's id or "not found" for not found
 	 */
 	public String getUserId(String email){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getEmail().equals(email))
-				return pu.getUserId();
-		}
+		PermanentUser pu = emailToUser.get(email);
+		if (pu != null)
+			return pu.getUserId();
 		return "not found";
 	}
 
@@ -536,10 +1078,6 @@ public class UserManager{
 	 * @return true if it id exists
 	 */
 	public boolean checkEmail(String email){
-		for (PermanentUser pu: permanentUsers){
-			if (pu.getEmail().equals(email))
-				return true;
-		}
-		return false;
+		return emailToUser.containsKey(email);
 	}
 }